@@ -0,0 +1,128 @@
+package com.wonkglorg.util.directorylistener;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cached view of the size and last modified time of every file inside a directory, used to work out which changes
+ * were missed by the watch service (for example after it reported an {@link java.nio.file.StandardWatchEventKinds#OVERFLOW})
+ */
+public class DirectorySnapshot {
+
+    private final Path directory;
+    private final Map<Path, FileStatus> entries = new ConcurrentHashMap<>();
+
+    public DirectorySnapshot(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Updates the cached status of a file
+     *
+     * @param file   the file to update
+     * @param status the new status, null removes the file from the snapshot
+     */
+    public void update(Path file, FileStatus status) {
+        if (status == null) {
+            entries.remove(file);
+        } else {
+            entries.put(file, status);
+        }
+    }
+
+    /**
+     * Removes a file from the snapshot
+     *
+     * @param file the file to remove
+     */
+    public void remove(Path file) {
+        entries.remove(file);
+    }
+
+    /**
+     * @param file the file to look up
+     * @return the cached status of the file or null if it is not part of the snapshot
+     */
+    public FileStatus get(Path file) {
+        return entries.get(file);
+    }
+
+    /**
+     * @return a live view of all cached entries
+     */
+    public Map<Path, FileStatus> getEntries() {
+        return entries;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Lists the directory once, reading the attributes of each entry a single time, compares the result against the
+     * cached state and updates the cache to match what is currently on disk
+     *
+     * @return the files that were created, modified or deleted since the cache was last updated
+     * @throws IOException if the directory could not be listed
+     */
+    public synchronized SnapshotDiff rescan() throws IOException {
+        List<Path> created = new ArrayList<>();
+        List<Path> modified = new ArrayList<>();
+        Set<Path> seen = new HashSet<>(Math.max(16, entries.size() * 2));
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    //deleted between listing and reading, treated as if it was never seen
+                    continue;
+                }
+                FileStatus status = FileStatus.of(attributes);
+                seen.add(file);
+
+                FileStatus previous = entries.put(file, status);
+                if (previous == null) {
+                    created.add(file);
+                } else if (!previous.equals(status)) {
+                    modified.add(file);
+                }
+            }
+        }
+
+        List<Path> deleted = new ArrayList<>();
+        for (Path file : entries.keySet()) {
+            if (!seen.contains(file)) {
+                deleted.add(file);
+            }
+        }
+        deleted.forEach(entries::remove);
+
+        return new SnapshotDiff(created, modified, deleted);
+    }
+
+    /**
+     * The difference between a cached snapshot and the current state of the directory
+     *
+     * @param created  files that did not exist in the snapshot
+     * @param modified files whose size or last modified time changed
+     * @param deleted  files that no longer exist
+     */
+    public record SnapshotDiff(List<Path> created, List<Path> modified, List<Path> deleted) {
+
+        public boolean isEmpty() {
+            return created.isEmpty() && modified.isEmpty() && deleted.isEmpty();
+        }
+    }
+}
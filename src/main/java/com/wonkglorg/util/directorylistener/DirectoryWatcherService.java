@@ -3,29 +3,81 @@ package com.wonkglorg.util.directorylistener;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
 import java.util.function.Consumer;
 
 import static java.nio.file.StandardWatchEventKinds.*;
 
+/**
+ * Watches one or more directories for file creation, modification and deletion. All directories share a single watching
+ * thread and a single stability scheduler, so the amount of threads stays the same no matter how many directories are watched
+ */
 public class DirectoryWatcherService {
 
-    private final Path directoryToWatch;
     private ExecutorService executorService;
+    private WatchService watchService;
+    /**
+     * The directory each registered watch key belongs to
+     */
+    private final Map<WatchKey, Path> watchKeys = new ConcurrentHashMap<>();
     private final ScheduledExecutorService scheduler;
     private Consumer<Exception> exceptionHandler = e -> e.printStackTrace();
     /**
-     * A set of files that are being monitored for stability (after a file has been created it is monitored until it is stable (no longer changing in size and last modified time)) to determin when to call the file created method, also prevents  modify calls being made for the file as part of its creation process
+     * Files that are being monitored for stability (after a file has been created it is monitored until it is stable (no longer changing in size and last modified time)) to determin when to call the file created method, also prevents  modify calls being made for the file as part of its creation process
      */
-    private final Map<Path, FileStatus> fileStabilityMonitorMap = new ConcurrentHashMap<>();
+    private final StabilityTracker stabilityTracker;
     private final Map<WatchEvent.Kind<Path>, Consumer<Path>> eventConsumerMap = new ConcurrentHashMap<>();
+    /**
+     * Cached sizes and last modified times of each watched directory, used to recover the events lost when the watch service overflows
+     */
+    private final Map<Path, DirectorySnapshot> snapshots = new ConcurrentHashMap<>();
     private long checkInterval = 500L;
+    /**
+     * Handler receiving every event as part of a batch
+     */
+    private Consumer<List<FileEvent>> batchHandler;
+    /**
+     * The executor handlers are run on, by default they run directly on the thread that produced the event
+     */
+    private Executor handlerExecutor = Runnable::run;
+    /**
+     * The handler pool created by {@link #handlerThreads(int)}, owned and shut down by this service
+     */
+    private PathOrderedExecutor handlerPool;
+    /**
+     * How long events are collected and merged per path before being delivered, 0 delivers every event right away
+     */
+    private long coalesceWindow = 0L;
+    /**
+     * Events waiting for the current coalesce window to end, merged per path and kept in the order they first happened
+     */
+    private final Map<Path, FileEvent> pendingEvents = new LinkedHashMap<>();
+    /**
+     * Optional checkpoint used to catch up on changes made while the service was not running
+     */
+    private WatcherCheckpoint checkpoint;
+    /**
+     * How often the checkpoint is saved while watching, 0 only saves it when stopping
+     */
+    private long checkpointInterval = 0L;
 
-    public DirectoryWatcherService(Path directoryToWatch, long checkInterval) {
-        this.directoryToWatch = directoryToWatch;
+    public DirectoryWatcherService(Collection<Path> directoriesToWatch, long checkInterval) {
         this.scheduler = Executors.newScheduledThreadPool(1);
         this.checkInterval = checkInterval;
+        this.stabilityTracker = new StabilityTracker(checkInterval, this::getFileStatus, this::onFileStable);
+        for (Path directory : directoriesToWatch) {
+            snapshots.put(directory, new DirectorySnapshot(directory));
+        }
+    }
+
+    public DirectoryWatcherService(Path directoryToWatch, long checkInterval) {
+        this(List.of(directoryToWatch), checkInterval);
     }
 
     public DirectoryWatcherService(Path directoryToWatch) {
@@ -33,44 +85,80 @@ public class DirectoryWatcherService {
     }
 
     /**
-     * Starts watching the directory for file creation, modification and deletion events
+     * Starts watching the directories for file creation, modification and deletion events
      */
     @SuppressWarnings("unchecked")
-    public void startWatching() {
+    public synchronized void startWatching() {
 
         if (executorService != null) return;
 
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            exceptionHandler.accept(e);
+            return;
+        }
+
         this.executorService = Executors.newSingleThreadExecutor();
         monitorFilesUntilStable();
+        if (coalesceWindow > 0) {
+            scheduler.scheduleWithFixedDelay(this::flushPendingEvents, coalesceWindow, coalesceWindow, TimeUnit.MILLISECONDS);
+        }
+        if (checkpoint != null && checkpointInterval > 0) {
+            scheduler.scheduleWithFixedDelay(this::saveCheckpoint, checkpointInterval, checkpointInterval, TimeUnit.MILLISECONDS);
+        }
+        List<Path> directories = new ArrayList<>(snapshots.keySet());
+        WatchService service = watchService;
         executorService.submit(() -> {
-            try {
-                WatchService watchService = FileSystems.getDefault().newWatchService();
-                directoryToWatch.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            try (service) {
+                for (Path directory : directories) {
+                    register(directory);
+                }
+                replayCheckpoint();
 
                 while (true) {
-                    WatchKey key = watchService.take();
+                    WatchKey key = service.take();
+                    Path directory = watchKeys.get(key);
+                    DirectorySnapshot snapshot = directory == null ? null : snapshots.get(directory);
+                    if (snapshot == null) {
+                        //no longer watched
+                        key.cancel();
+                        continue;
+                    }
 
                     for (WatchEvent<?> event : key.pollEvents()) {
                         WatchEvent.Kind<?> kind = event.kind();
 
-                        if (kind == null || kind == OVERFLOW) continue;
+                        if (kind == null) continue;
 
-                        Path filePath = directoryToWatch.resolve(((WatchEvent<Path>) event).context());
+                        if (kind == OVERFLOW) {
+                            recoverFromOverflow(snapshot);
+                            continue;
+                        }
+
+                        Path filePath = directory.resolve(((WatchEvent<Path>) event).context());
 
                         if (kind == ENTRY_CREATE) {
-                            fileStabilityMonitorMap.put(filePath, getFileStatus(filePath));
+                            monitorUntilStable(filePath);
                         } else if (kind == ENTRY_MODIFY) {
-                            //skips the event call cause its still being monitored for stability
-                            if (fileStabilityMonitorMap.containsKey(filePath)) continue;
+                            //skips the event call cause its still being monitored for stability, restarting its quiet period
+                            if (stabilityTracker.touch(filePath)) continue;
+                            snapshot.update(filePath, getFileStatus(filePath));
                             executeEventHandler(ENTRY_MODIFY, filePath);
                         } else if (kind == ENTRY_DELETE) {
-                            fileStabilityMonitorMap.remove(filePath);
+                            stabilityTracker.remove(filePath);
+                            snapshot.remove(filePath);
                             executeEventHandler(ENTRY_DELETE, filePath);
                         }
                     }
 
-                    key.reset();
+                    if (!key.reset()) {
+                        //the directory itself is gone
+                        watchKeys.remove(key);
+                    }
                 }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                //stopped watching
             } catch (Exception e) {
                 exceptionHandler.accept(e);
             }
@@ -79,28 +167,172 @@ public class DirectoryWatcherService {
 
 
     /**
-     * Monitors files until they are stable (no longer changing in size and last modified time) and then calls the file created event
+     * Adds a directory to watch, can be called before or after {@link #startWatching()}
+     *
+     * @param directory the directory to watch
+     * @return the DirectoryWatcherService instance
+     */
+    public synchronized DirectoryWatcherService watchDirectory(Path directory) {
+        if (snapshots.putIfAbsent(directory, new DirectorySnapshot(directory)) != null) return this;
+        if (watchService != null) {
+            try {
+                register(directory);
+            } catch (IOException e) {
+                snapshots.remove(directory);
+                exceptionHandler.accept(e);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Stops watching a directory, files of it still waiting to become stable are not reported anymore
+     *
+     * @param directory the directory to stop watching
+     * @return the DirectoryWatcherService instance
+     */
+    public synchronized DirectoryWatcherService unwatchDirectory(Path directory) {
+        if (snapshots.remove(directory) == null) return this;
+        watchKeys.entrySet().removeIf(entry -> {
+            if (!entry.getValue().equals(directory)) return false;
+            entry.getKey().cancel();
+            return true;
+        });
+        return this;
+    }
+
+    /**
+     * @return the directories currently being watched
+     */
+    public List<Path> getWatchedDirectories() {
+        return List.copyOf(snapshots.keySet());
+    }
+
+    /**
+     * Registers a directory with the shared watch service and takes its initial snapshot
+     *
+     * @param directory the directory to register
+     * @throws IOException if the directory could not be registered or listed
+     */
+    private void register(Path directory) throws IOException {
+        DirectorySnapshot snapshot = snapshots.get(directory);
+        if (snapshot == null) return;
+        watchKeys.put(directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), directory);
+        //registered first so nothing changing while the initial snapshot is taken goes unnoticed
+        snapshot.rescan();
+    }
+
+    /**
+     * Emits the changes made since the checkpoint was last saved, called once all directories are registered and before any live event is handled
+     */
+    private void replayCheckpoint() {
+        if (checkpoint == null || !checkpoint.exists()) return;
+        try {
+            emitChanges(checkpoint.diff(snapshots.values()));
+        } catch (IOException e) {
+            exceptionHandler.accept(e);
+        }
+    }
+
+    /**
+     * Saves the current snapshots to the checkpoint
+     */
+    private void saveCheckpoint() {
+        if (checkpoint == null) return;
+        try {
+            checkpoint.save(snapshots.values());
+        } catch (IOException e) {
+            exceptionHandler.accept(e);
+        }
+    }
+
+    /**
+     * Called when the watch service dropped events, rescans the directory and compares it against the cached snapshot
+     * to emit the create, modify and delete events that were lost
+     *
+     * @param snapshot the snapshot of the directory that overflowed
+     */
+    private void recoverFromOverflow(DirectorySnapshot snapshot) {
+        DirectorySnapshot.SnapshotDiff diff;
+        try {
+            diff = snapshot.rescan();
+        } catch (IOException e) {
+            exceptionHandler.accept(e);
+            return;
+        }
+        emitChanges(diff);
+    }
+
+    /**
+     * Emits the events for changes that were not reported by the watch service itself, created files still have to become stable first
+     *
+     * @param diff the changes to emit
+     */
+    private void emitChanges(DirectorySnapshot.SnapshotDiff diff) {
+        for (Path filePath : diff.created()) {
+            monitorUntilStable(filePath);
+        }
+        for (Path filePath : diff.modified()) {
+            if (stabilityTracker.touch(filePath)) continue;
+            executeEventHandler(ENTRY_MODIFY, filePath);
+        }
+        for (Path filePath : diff.deleted()) {
+            stabilityTracker.remove(filePath);
+            executeEventHandler(ENTRY_DELETE, filePath);
+        }
+    }
+
+    /**
+     * Adds a newly created file to the {@link #stabilityTracker} unless it is already being monitored, in which case its quiet period is restarted
+     *
+     * @param filePath the created file
+     */
+    private void monitorUntilStable(Path filePath) {
+        if (stabilityTracker.touch(filePath)) return;
+        FileStatus status = getFileStatus(filePath);
+        if (status != null) {
+            stabilityTracker.track(filePath, status);
+        }
+    }
+
+    /**
+     * Monitors files until they are stable (no longer changing in size and last modified time) and then calls the file created event,
+     * each tick only checks the files whose quiet period ran out
      */
     private void monitorFilesUntilStable() {
-        scheduler.scheduleAtFixedRate(() ->//
-                fileStabilityMonitorMap.forEach((fileName, currentStatus) -> {
-                    FileStatus newStatus = getFileStatus(fileName);
-                    if (currentStatus.equals(newStatus)) {
-                        fileStabilityMonitorMap.remove(fileName);
-                        executeEventHandler(ENTRY_CREATE, fileName);
-                    } else {
-                        currentStatus.setValues(newStatus.getFileSize(), newStatus.getLastModifiedTime());
-                    }
-                }), 0, checkInterval, TimeUnit.MILLISECONDS);  // Run the check at a regular interval
+        long tick = stabilityTracker.getTickMillis();
+        scheduler.scheduleAtFixedRate(stabilityTracker::advance, tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called by the {@link #stabilityTracker} once a created file stopped changing
+     *
+     * @param fileName the file that is stable
+     * @param status   its final status
+     */
+    private void onFileStable(Path fileName, FileStatus status) {
+        DirectorySnapshot snapshot = snapshots.get(fileName.getParent());
+        if (snapshot == null) return;
+        snapshot.update(fileName, status);
+        executeEventHandler(ENTRY_CREATE, fileName);
     }
 
     /**
-     * Stops watching the directory
+     * Stops watching the directory, events still waiting in the current coalesce window are delivered before returning
      * @throws InterruptedException if the executor service is interrupted
      */
-    public void stopWatching() throws InterruptedException {
+    public synchronized void stopWatching() throws InterruptedException {
+        if (executorService == null) return;
+        executorService.shutdownNow();
+        watchService = null;
+        scheduler.shutdown();
         executorService.awaitTermination(3, TimeUnit.SECONDS);
         scheduler.awaitTermination(3, TimeUnit.SECONDS);
+        flushPendingEvents();
+        saveCheckpoint();
+        if (handlerPool != null) {
+            handlerPool.shutdown(3, TimeUnit.SECONDS);
+        }
     }
 
 
@@ -112,10 +344,10 @@ public class DirectoryWatcherService {
      */
     private FileStatus getFileStatus(Path fileName) {
         try {
-            long fileSize = Files.size(fileName);
-            BasicFileAttributes attributes = Files.readAttributes(fileName, BasicFileAttributes.class);
-            long lastModifiedTime = attributes.lastModifiedTime().toMillis();
-            return new FileStatus(fileSize, lastModifiedTime);
+            return FileStatus.of(Files.readAttributes(fileName, BasicFileAttributes.class));
+        } catch (NoSuchFileException e) {
+            //deleted before it could be read, the delete event takes care of it
+            return null;
         } catch (IOException e) {
             exceptionHandler.accept(e);
             return null;
@@ -155,15 +387,169 @@ public class DirectoryWatcherService {
         return this;
     }
 
+    /**
+     * Register a handler receiving all events as batches, when {@link #coalesceEvents(long)} is set each batch contains every path that changed during the window with only its net change, otherwise each batch holds a single event.
+     * The per kind handlers are still called for every event in the batch after this one
+     *
+     * @param handler the handler to run for every batch of events
+     * @return the DirectoryWatcherService instance
+     */
+    public DirectoryWatcherService onFileEvents(Consumer<List<FileEvent>> handler) {
+        batchHandler = handler;
+        return this;
+    }
+
+    /**
+     * Collects events for the given window and merges them per path before delivering them (a file modified 50 times during the window results in a single modify event), has to be set before {@link #startWatching()}
+     *
+     * @param windowMillis how long to collect events for in milliseconds, 0 to deliver every event right away (default: 0)
+     * @return the DirectoryWatcherService instance
+     */
+    public DirectoryWatcherService coalesceEvents(long windowMillis) {
+        coalesceWindow = Math.max(0, windowMillis);
+        return this;
+    }
+
+    /**
+     * Sets the executor all handlers are run on, so slow handlers do not hold up the watching thread (default: runs on the watching thread itself)
+     *
+     * @param executor the executor to run handlers on
+     * @return the DirectoryWatcherService instance
+     */
+    public DirectoryWatcherService handlerExecutor(Executor executor) {
+        handlerExecutor = executor;
+        handlerPool = null;
+        return this;
+    }
+
+    /**
+     * Runs all handlers on a fixed size pool owned by this service, events of the same path are always handled in order on the same thread while different paths are handled in parallel.
+     * With {@link #coalesceEvents(long)} each batch is split up per thread so the batch handler may receive several smaller batches per window
+     *
+     * @param threads the amount of handler threads
+     * @return the DirectoryWatcherService instance
+     */
+    public DirectoryWatcherService handlerThreads(int threads) {
+        handlerPool = new PathOrderedExecutor(threads);
+        handlerExecutor = handlerPool;
+        return this;
+    }
+
+    /**
+     * Keeps a checkpoint of all watched files so changes made while the service was not running are emitted as events on the next {@link #startWatching()}, before any live event.
+     * The checkpoint is saved when stopping the service, has to be set before {@link #startWatching()}
+     *
+     * @param file the file to store the checkpoint in
+     * @return the DirectoryWatcherService instance
+     */
+    public DirectoryWatcherService checkpoint(Path file) {
+        return checkpoint(file, 0L);
+    }
+
+    /**
+     * Keeps a checkpoint of all watched files so changes made while the service was not running are emitted as events on the next {@link #startWatching()}, before any live event.
+     * The checkpoint is saved periodically and when stopping the service, has to be set before {@link #startWatching()}
+     *
+     * @param file           the file to store the checkpoint in
+     * @param intervalMillis how often to save the checkpoint while watching in milliseconds, 0 to only save it when stopping
+     * @return the DirectoryWatcherService instance
+     */
+    public DirectoryWatcherService checkpoint(Path file, long intervalMillis) {
+        checkpoint = new WatcherCheckpoint(file);
+        checkpointInterval = Math.max(0, intervalMillis);
+        return this;
+    }
+
     public DirectoryWatcherService onException(Consumer<Exception> handler) {
         exceptionHandler = handler;
         return this;
     }
 
     private void executeEventHandler(WatchEvent.Kind<Path> kind, Path fileName) {
-        Consumer<Path> handler = eventConsumerMap.get(kind);
-        if (handler != null) {
-            handler.accept(fileName);
+        FileEvent event = new FileEvent(fileName, kind);
+        if (coalesceWindow <= 0) {
+            dispatch(List.of(event));
+            return;
+        }
+
+        synchronized (pendingEvents) {
+            FileEvent merged = FileEvent.merge(pendingEvents.get(fileName), event);
+            if (merged == null) {
+                pendingEvents.remove(fileName);
+            } else {
+                pendingEvents.put(fileName, merged);
+            }
+        }
+    }
+
+    /**
+     * Delivers all events collected during the current coalesce window as a single batch
+     */
+    private void flushPendingEvents() {
+        List<FileEvent> batch;
+        synchronized (pendingEvents) {
+            if (pendingEvents.isEmpty()) return;
+            batch = new ArrayList<>(pendingEvents.values());
+            pendingEvents.clear();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(List<FileEvent> batch) {
+        try {
+            if (handlerExecutor instanceof PathOrderedExecutor orderedExecutor) {
+                dispatchOrdered(orderedExecutor, batch);
+            } else {
+                handlerExecutor.execute(() -> deliver(batch));
+            }
+        } catch (RejectedExecutionException e) {
+            exceptionHandler.accept(e);
+        }
+    }
+
+    /**
+     * Splits a batch up by the lane each path is bound to so events of the same path keep their order across batches
+     *
+     * @param executor the executor to run on
+     * @param batch    the events to deliver
+     */
+    private void dispatchOrdered(PathOrderedExecutor executor, List<FileEvent> batch) {
+        if (batch.size() == 1) {
+            executor.execute(batch.get(0).path(), () -> deliver(batch));
+            return;
+        }
+
+        Map<Integer, List<FileEvent>> batchesPerLane = new HashMap<>();
+        for (FileEvent event : batch) {
+            batchesPerLane.computeIfAbsent(executor.laneOf(event.path()), lane -> new ArrayList<>()).add(event);
+        }
+        for (List<FileEvent> laneBatch : batchesPerLane.values()) {
+            executor.execute(laneBatch.get(0).path(), () -> deliver(laneBatch));
+        }
+    }
+
+    /**
+     * Runs the batch handler followed by the handler of each event, exceptions thrown by a handler are passed to the exception handler and do not stop the remaining handlers
+     *
+     * @param batch the events to deliver
+     */
+    private void deliver(List<FileEvent> batch) {
+        if (batchHandler != null) {
+            try {
+                batchHandler.accept(batch);
+            } catch (Exception e) {
+                exceptionHandler.accept(e);
+            }
+        }
+
+        for (FileEvent event : batch) {
+            Consumer<Path> handler = eventConsumerMap.get(event.kind());
+            if (handler == null) continue;
+            try {
+                handler.accept(event.path());
+            } catch (Exception e) {
+                exceptionHandler.accept(e);
+            }
         }
     }
 
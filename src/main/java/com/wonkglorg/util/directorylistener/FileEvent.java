@@ -0,0 +1,40 @@
+package com.wonkglorg.util.directorylistener;
+
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * A single (possibly coalesced) change to a file reported by the {@link DirectoryWatcherService}
+ *
+ * @param path the file that changed
+ * @param kind the kind of change, one of {@link java.nio.file.StandardWatchEventKinds#ENTRY_CREATE}, {@link java.nio.file.StandardWatchEventKinds#ENTRY_MODIFY} or {@link java.nio.file.StandardWatchEventKinds#ENTRY_DELETE}
+ */
+public record FileEvent(Path path, WatchEvent.Kind<Path> kind) {
+
+    /**
+     * Merges a newer event for the same path into an older one so only the net change is delivered
+     *
+     * @param previous the event that is already pending
+     * @param next     the event that just happened
+     * @return the merged event or null if both cancel each other out (a file created and deleted again)
+     */
+    public static FileEvent merge(FileEvent previous, FileEvent next) {
+        if (previous == null) return next;
+
+        WatchEvent.Kind<Path> before = previous.kind();
+        WatchEvent.Kind<Path> after = next.kind();
+
+        if (before == ENTRY_CREATE) {
+            if (after == ENTRY_DELETE) return null;
+            //any later change is still part of the file being new
+            return previous;
+        }
+        if (before == ENTRY_DELETE && after == ENTRY_CREATE) {
+            //the file was replaced
+            return new FileEvent(next.path(), ENTRY_MODIFY);
+        }
+        return next;
+    }
+}
@@ -1,5 +1,7 @@
 package com.wonkglorg.util.directorylistener;
 
+import java.nio.file.attribute.BasicFileAttributes;
+
 public class FileStatus {
     private long fileSize;
     private long lastModifiedTime;
@@ -9,6 +11,16 @@ public class FileStatus {
         this.lastModifiedTime = lastModifiedTime;
     }
 
+    /**
+     * Creates a file status from already read attributes
+     *
+     * @param attributes the attributes of the file
+     * @return the file status
+     */
+    public static FileStatus of(BasicFileAttributes attributes) {
+        return new FileStatus(attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+
     public void setValues(long fileSize, long lastModifiedTime) {
         this.fileSize = fileSize;
         this.lastModifiedTime = lastModifiedTime;
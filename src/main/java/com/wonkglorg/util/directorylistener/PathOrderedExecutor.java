@@ -0,0 +1,84 @@
+package com.wonkglorg.util.directorylistener;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed size handler pool where every path is bound to one lane (a single thread), so tasks for the same path always
+ * run in the order they were submitted while tasks for different paths run in parallel
+ */
+public class PathOrderedExecutor implements Executor {
+    private static final AtomicInteger poolIndex = new AtomicInteger(1);
+    private final ExecutorService[] lanes;
+    private final AtomicInteger nextLane = new AtomicInteger();
+
+    /**
+     * @param threads the amount of lanes (threads) in this pool
+     */
+    public PathOrderedExecutor(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1 but was " + threads);
+        }
+        int pool = poolIndex.getAndIncrement();
+        this.lanes = new ExecutorService[threads];
+        for (int i = 0; i < threads; i++) {
+            String name = "DirectoryWatcherHandler%s-%s".formatted(pool, i);
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, name));
+        }
+    }
+
+    /**
+     * Runs the task on the lane the path is bound to
+     *
+     * @param path the path the task belongs to
+     * @param task the task to run
+     */
+    public void execute(Path path, Runnable task) {
+        lanes[laneOf(path)].execute(task);
+    }
+
+    /**
+     * Runs a task that does not belong to any path on the next lane
+     *
+     * @param task the task to run
+     */
+    @Override
+    public void execute(Runnable task) {
+        lanes[Math.floorMod(nextLane.getAndIncrement(), lanes.length)].execute(task);
+    }
+
+    /**
+     * @param path the path to look up
+     * @return the index of the lane the path is bound to
+     */
+    public int laneOf(Path path) {
+        return Math.floorMod(path.hashCode(), lanes.length);
+    }
+
+    /**
+     * @return the amount of lanes in this pool
+     */
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Shuts down all lanes after their queued tasks finished
+     *
+     * @param timeout how long to wait for each lane
+     * @param unit    the unit of the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            lane.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.wonkglorg.util.directorylistener;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Tracks files until they stop changing (no longer changing in size and last modified time for a full quiet period).
+ * Driven by a hashed timer wheel so a file is only read once its quiet period ran out instead of every pending file being
+ * read on every tick, {@link #advance()} has to be called every {@link #getTickMillis()} milliseconds
+ */
+public class StabilityTracker {
+    /**
+     * How many ticks a quiet period is split into, the higher the more accurate the point a file is checked at
+     */
+    private static final int TICKS_PER_QUIET_PERIOD = 10;
+    /**
+     * Amount of buckets on the wheel (has to be a power of 2), entries further in the future than one rotation are moved along when their bucket comes up
+     */
+    private static final int WHEEL_SIZE = 64;
+
+    private final long tickMillis;
+    private final int quietTicks;
+    private final List<Set<Path>> wheel;
+    private final Map<Path, Entry> entries = new HashMap<>();
+    /**
+     * Reads the current status of a file, returns null if the file no longer exists
+     */
+    private final Function<Path, FileStatus> statusReader;
+    /**
+     * Called once a file is stable with its final status
+     */
+    private final BiConsumer<Path, FileStatus> onStable;
+    private long currentTick = 0;
+
+    /**
+     * @param quietPeriodMillis how long a file has to stay unchanged to be considered stable
+     * @param statusReader      reads the current status of a file, returns null if the file no longer exists
+     * @param onStable          called once a file is stable
+     */
+    public StabilityTracker(long quietPeriodMillis, Function<Path, FileStatus> statusReader, BiConsumer<Path, FileStatus> onStable) {
+        this.tickMillis = Math.max(1, quietPeriodMillis / TICKS_PER_QUIET_PERIOD);
+        this.quietTicks = (int) Math.max(1, (quietPeriodMillis + tickMillis - 1) / tickMillis);
+        this.statusReader = statusReader;
+        this.onStable = onStable;
+        this.wheel = new ArrayList<>(WHEEL_SIZE);
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new LinkedHashSet<>());
+        }
+    }
+
+    /**
+     * Starts tracking a file, does nothing if the file is already tracked
+     *
+     * @param file   the file to track
+     * @param status the current status of the file
+     * @return true if the file was not tracked before
+     */
+    public synchronized boolean track(Path file, FileStatus status) {
+        if (entries.containsKey(file)) return false;
+        Entry entry = new Entry(status, currentTick + quietTicks);
+        entries.put(file, entry);
+        bucketOf(entry.deadlineTick).add(file);
+        return true;
+    }
+
+    /**
+     * Restarts the quiet period of a tracked file, should be called whenever the file is reported as modified.
+     * Only moves the deadline, the file is moved to its new bucket once its old one comes up
+     *
+     * @param file the file that changed
+     * @return true if the file is being tracked
+     */
+    public synchronized boolean touch(Path file) {
+        Entry entry = entries.get(file);
+        if (entry == null) return false;
+        entry.deadlineTick = currentTick + quietTicks;
+        return true;
+    }
+
+    /**
+     * Stops tracking a file without reporting it as stable
+     *
+     * @param file the file to remove
+     */
+    public synchronized void remove(Path file) {
+        entries.remove(file);
+    }
+
+    /**
+     * @param file the file to check
+     * @return true if the file is still waiting to become stable
+     */
+    public synchronized boolean isTracked(Path file) {
+        return entries.containsKey(file);
+    }
+
+    /**
+     * @return the amount of files waiting to become stable
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return how often {@link #advance()} should be called in milliseconds
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Moves the wheel forward by one tick and checks the files whose quiet period ran out, the file status is read outside the lock so the watching thread is never blocked by it
+     */
+    public void advance() {
+        List<Path> expired = new ArrayList<>();
+        synchronized (this) {
+            currentTick++;
+            Set<Path> bucket = bucketOf(currentTick);
+            Iterator<Path> iterator = bucket.iterator();
+            List<Path> postponed = new ArrayList<>();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                Entry entry = entries.get(file);
+                if (entry == null) {
+                    iterator.remove();
+                } else if (entry.deadlineTick > currentTick) {
+                    //touched since it was scheduled or more than one rotation away
+                    if (bucketOf(entry.deadlineTick) != bucket) {
+                        iterator.remove();
+                        postponed.add(file);
+                    }
+                } else {
+                    iterator.remove();
+                    expired.add(file);
+                }
+            }
+            for (Path file : postponed) {
+                bucketOf(entries.get(file).deadlineTick).add(file);
+            }
+        }
+
+        for (Path file : expired) {
+            check(file);
+        }
+    }
+
+    /**
+     * Compares the current status of a file against the one it had when its quiet period started
+     *
+     * @param file the file to check
+     */
+    private void check(Path file) {
+        FileStatus newStatus = statusReader.apply(file);
+        synchronized (this) {
+            Entry entry = entries.get(file);
+            //removed while its status was being read
+            if (entry == null) return;
+
+            if (newStatus == null) {
+                entries.remove(file);
+                return;
+            }
+
+            if (!newStatus.equals(entry.status) || entry.deadlineTick > currentTick) {
+                entry.status = newStatus;
+                entry.deadlineTick = currentTick + quietTicks;
+                bucketOf(entry.deadlineTick).add(file);
+                return;
+            }
+            entries.remove(file);
+        }
+        onStable.accept(file, newStatus);
+    }
+
+    private Set<Path> bucketOf(long tick) {
+        return wheel.get((int) (tick & (WHEEL_SIZE - 1)));
+    }
+
+    private static class Entry {
+        private FileStatus status;
+        private long deadlineTick;
+
+        private Entry(FileStatus status, long deadlineTick) {
+            this.status = status;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.wonkglorg.util.directorylistener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compact on disk copy of the {@link DirectorySnapshot}s of a {@link DirectoryWatcherService}, used to work out which changes happened while the
+ * service was not running.
+ * <p>
+ * The file holds one record (path, size, last modified time) per file sorted by path, so comparing it against the current state is a single
+ * sequential pass over a memory mapped file without ever loading the checkpoint onto the heap. Paths are stored as they were given to the
+ * service, so the same directory paths have to be watched after a restart for the checkpoint to match.
+ */
+public class WatcherCheckpoint {
+    private static final int MAGIC = 0x57434B31;
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    /**
+     * How much of the checkpoint is mapped at once
+     */
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+    private final Path file;
+
+    /**
+     * @param file the file the checkpoint is stored in
+     */
+    public WatcherCheckpoint(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return true if a checkpoint has been saved before
+     */
+    public boolean exists() {
+        return Files.isRegularFile(file);
+    }
+
+    /**
+     * Saves the current state of the snapshots, the checkpoint is written to a temporary file first and then moved in place so a crash while saving
+     * never leaves a broken checkpoint behind
+     *
+     * @param snapshots the snapshots to save
+     * @throws IOException if the checkpoint could not be written
+     */
+    public void save(Collection<DirectorySnapshot> snapshots) throws IOException {
+        List<Record> records = sortedRecords(snapshots);
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            buffer.putInt(MAGIC).putLong(records.size());
+            for (Record record : records) {
+                byte[] path = record.key().getBytes(StandardCharsets.UTF_8);
+                int length = Integer.BYTES + path.length + 2 * Long.BYTES;
+                if (buffer.remaining() < length) {
+                    flush(channel, buffer);
+                    if (buffer.capacity() < length) {
+                        buffer = ByteBuffer.allocate(length);
+                    }
+                }
+                buffer.putInt(path.length).put(path).putLong(record.status().getFileSize()).putLong(record.status().getLastModifiedTime());
+            }
+            flush(channel, buffer);
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Compares the checkpoint against the current state of the snapshots. Files stored for directories that are not part of the given snapshots
+     * are ignored instead of being reported as deleted
+     *
+     * @param snapshots the current snapshots
+     * @return the files created, modified or deleted since the checkpoint was saved, everything counts as created if no checkpoint exists
+     * @throws IOException if the checkpoint could not be read or is not a valid checkpoint file
+     */
+    public DirectorySnapshot.SnapshotDiff diff(Collection<DirectorySnapshot> snapshots) throws IOException {
+        List<Record> current = sortedRecords(snapshots);
+        List<Path> created = new ArrayList<>();
+        List<Path> modified = new ArrayList<>();
+        List<Path> deleted = new ArrayList<>();
+
+        if (!exists()) {
+            current.forEach(record -> created.add(record.path()));
+            return new DirectorySnapshot.SnapshotDiff(created, modified, deleted);
+        }
+
+        Set<String> directories = new HashSet<>();
+        for (DirectorySnapshot snapshot : snapshots) {
+            directories.add(snapshot.getDirectory().toString());
+        }
+
+        try (Reader reader = new Reader(file)) {
+            int index = 0;
+            boolean hasStored = reader.next();
+            while (index < current.size() || hasStored) {
+                Record record = index < current.size() ? current.get(index) : null;
+                int compare;
+                if (record == null) {
+                    compare = 1;
+                } else if (!hasStored) {
+                    compare = -1;
+                } else {
+                    compare = record.key().compareTo(reader.path);
+                }
+
+                if (compare < 0) {
+                    created.add(record.path());
+                    index++;
+                } else if (compare > 0) {
+                    Path stored = Path.of(reader.path);
+                    if (stored.getParent() != null && directories.contains(stored.getParent().toString())) {
+                        deleted.add(stored);
+                    }
+                    hasStored = reader.next();
+                } else {
+                    if (record.status().getFileSize() != reader.size || record.status().getLastModifiedTime() != reader.lastModified) {
+                        modified.add(record.path());
+                    }
+                    index++;
+                    hasStored = reader.next();
+                }
+            }
+        }
+        return new DirectorySnapshot.SnapshotDiff(created, modified, deleted);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static List<Record> sortedRecords(Collection<DirectorySnapshot> snapshots) {
+        List<Record> records = new ArrayList<>();
+        for (DirectorySnapshot snapshot : snapshots) {
+            for (Map.Entry<Path, FileStatus> entry : snapshot.getEntries().entrySet()) {
+                records.add(new Record(entry.getKey().toString(), entry.getKey(), entry.getValue()));
+            }
+        }
+        records.sort(Comparator.comparing(Record::key));
+        return records;
+    }
+
+    private record Record(String key, Path path, FileStatus status) {
+    }
+
+    /**
+     * Reads the records of a checkpoint one after another, mapping the file in windows of {@link #MAP_WINDOW} so checkpoints larger than 2GB can be read
+     */
+    private static final class Reader implements Closeable {
+        private final FileChannel channel;
+        private final long fileSize;
+        private long remainingRecords;
+        private MappedByteBuffer buffer;
+        private long bufferStart;
+        private String path;
+        private long size;
+        private long lastModified;
+
+        private Reader(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.fileSize = channel.size();
+            try {
+                map(0);
+                ensure(HEADER_SIZE);
+                if (buffer.getInt() != MAGIC) {
+                    throw new IOException("Not a watcher checkpoint: " + file);
+                }
+                remainingRecords = buffer.getLong();
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Moves to the next record
+         *
+         * @return false if there are no more records
+         * @throws IOException if the checkpoint is truncated
+         */
+        private boolean next() throws IOException {
+            if (remainingRecords <= 0) return false;
+            remainingRecords--;
+            ensure(Integer.BYTES);
+            int length = buffer.getInt();
+            ensure(length + 2 * Long.BYTES);
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            path = new String(bytes, StandardCharsets.UTF_8);
+            size = buffer.getLong();
+            lastModified = buffer.getLong();
+            return true;
+        }
+
+        /**
+         * Remaps the window at the current position if fewer than the required bytes are left in it
+         */
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) return;
+            long position = bufferStart + buffer.position();
+            if (fileSize - position < bytes) {
+                throw new IOException("Watcher checkpoint is truncated");
+            }
+            map(position);
+        }
+
+        private void map(long position) throws IOException {
+            bufferStart = position;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, fileSize - position));
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
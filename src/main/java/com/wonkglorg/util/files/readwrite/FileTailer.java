@@ -0,0 +1,315 @@
+package com.wonkglorg.util.files.readwrite;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Follows a growing file like "tail -f", remembering how far it has read and only reading bytes appended since the last poll through positional
+ * {@link FileChannel} reads.
+ * <p>
+ * If the file is replaced (rotated) the rest of the old file is read before following the new one from its start, if the file shrinks (truncated) it is read
+ * again from its start. A trailing line without '\n' is held back until it is completed. Replacement is detected through the file key, on file systems without
+ * file keys through the creation time and the size of the path compared to the open file, so a new file that already grew past the read offset before the next
+ * poll is only noticed once its creation time differs.
+ */
+public class FileTailer implements Closeable {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final CharBuffer chars = CharBuffer.allocate(READ_BUFFER_SIZE);
+    private final StringBuilder partialLine = new StringBuilder();
+    private FileChannel channel;
+    private Object fileKey;
+    /**
+     * The creation time of the open file, only used when there is no file key and the file system keeps creation times
+     */
+    private FileTime creationTime;
+    private long offset;
+    private volatile boolean closed = false;
+
+    /**
+     * @param file      the file to follow, does not need to exist yet
+     * @param charset   the charset of the file
+     * @param fromStart true to return the lines already in the file on the first poll, false to only return lines appended from now on
+     * @throws IOException if the file exists but could not be opened
+     */
+    public FileTailer(Path file, Charset charset, boolean fromStart) throws IOException {
+        this.file = file;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        if (open() && !fromStart) {
+            offset = channel.size();
+        }
+    }
+
+    /**
+     * Reads all complete lines appended since the last poll
+     *
+     * @return the new lines, empty if there are none
+     * @throws IOException if the file could not be read
+     */
+    public synchronized List<String> poll() throws IOException {
+        List<String> lines = new ArrayList<>();
+        poll(lines::add);
+        return lines;
+    }
+
+    /**
+     * Reads all complete lines appended since the last poll and passes them to the action in order
+     *
+     * @param action the action to run for every new line
+     * @return the amount of new lines
+     * @throws IOException if the file could not be read
+     */
+    public synchronized int poll(Consumer<String> action) throws IOException {
+        if (closed) return 0;
+        if (channel == null && !open()) return 0;
+
+        BasicFileAttributes attributes = currentAttributes();
+        int count = 0;
+        if (isReplaced(attributes)) {
+            //rotated, finish the old file before switching over
+            count += readAppended(action);
+            count += flushPartialLine(action);
+            channel.close();
+            channel = null;
+            if (!open()) return count;
+        } else if (channel.size() < offset) {
+            //truncated, start over from the beginning
+            reset();
+        }
+        return count + readAppended(action);
+    }
+
+    /**
+     * Follows the file as an endless stream of lines, waiting for new lines when all were consumed, the stream ends once this tailer is closed
+     *
+     * @param pollIntervalMillis how long to wait before checking for new lines again
+     * @return a stream of the lines
+     */
+    public Stream<String> follow(long pollIntervalMillis) {
+        Queue<String> pending = new ArrayDeque<>();
+        Spliterator<String> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super String> action) {
+                try {
+                    while (pending.isEmpty()) {
+                        if (closed) return false;
+                        if (poll(pending::add) == 0) {
+                            Thread.sleep(pollIntervalMillis);
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                action.accept(pending.poll());
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * @return the byte offset in the current file up to which it has been read
+     */
+    public synchronized long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Reads the last lines of a file by reading backwards from its end, only the end of the file is read
+     *
+     * @param file    the file to read
+     * @param charset the charset of the file
+     * @param amount  the amount of lines to read
+     * @return up to the amount of last lines in order, a trailing line break does not count as an empty last line
+     * @throws IOException if the file could not be read
+     */
+    public static List<String> lastLines(Path file, Charset charset, int amount) throws IOException {
+        if (amount <= 0) return new ArrayList<>();
+        if (!ParallelLineReader.isSplittable(charset)) {
+            List<String> all = Files.readAllLines(file, charset);
+            return new ArrayList<>(all.subList(Math.max(0, all.size() - amount), all.size()));
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            long start = size;
+            int found = 0;
+            //skip a trailing line break so it does not count as an empty line
+            long searchEnd = size;
+            if (size > 0 && readByte(channel, size - 1) == '\n') searchEnd--;
+
+            search:
+            while (start > 0) {
+                long blockStart = Math.max(0, start - buffer.capacity());
+                buffer.clear().limit((int) (start - blockStart));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, blockStart + buffer.position()) <= 0) break;
+                }
+                for (int i = buffer.position() - 1; i >= 0; i--) {
+                    long position = blockStart + i;
+                    if (position < searchEnd && buffer.get(i) == '\n' && ++found == amount) {
+                        start = position + 1;
+                        break search;
+                    }
+                }
+                start = blockStart;
+            }
+
+            List<String> lines = new ArrayList<>();
+            try (MappedLineReader reader = new MappedLineReader(file, charset, start, size)) {
+                reader.forEachLine(line -> lines.add(line.toString()));
+            }
+            return lines;
+        }
+    }
+
+    private static byte readByte(FileChannel channel, long position) throws IOException {
+        ByteBuffer single = ByteBuffer.allocate(1);
+        channel.read(single, position);
+        return single.get(0);
+    }
+
+    /**
+     * Opens the file if it exists
+     *
+     * @return true if it was opened
+     */
+    private boolean open() throws IOException {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        BasicFileAttributes attributes = currentAttributes();
+        fileKey = attributes == null ? null : attributes.fileKey();
+        //file systems without a creation time report the last modified time instead, which changes with every append
+        creationTime = attributes == null || fileKey != null || attributes.creationTime().equals(attributes.lastModifiedTime()) ? null : attributes.creationTime();
+        reset();
+        return true;
+    }
+
+    /**
+     * Checks if the path now leads to a different file than the open one. Without a file key (Windows and some other file systems) a changed creation time is
+     * used, and as it may be carried over to a file recreated under the same name, a path shorter than what was read while the open file is not shorter also counts
+     * as replaced.
+     *
+     * @param attributes the current attributes of the path, null if it does not exist
+     * @return true if the file was replaced
+     */
+    private boolean isReplaced(BasicFileAttributes attributes) throws IOException {
+        if (attributes == null) return false;
+        if (fileKey != null) return !fileKey.equals(attributes.fileKey());
+        if (creationTime != null && !creationTime.equals(attributes.creationTime())) return true;
+        return attributes.size() < offset && channel.size() >= offset;
+    }
+
+    private BasicFileAttributes currentAttributes() throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private void reset() {
+        offset = 0;
+        bytes.clear();
+        decoder.reset();
+        partialLine.setLength(0);
+    }
+
+    /**
+     * Reads everything after the offset, passing every completed line to the action
+     *
+     * @return the amount of lines completed
+     */
+    private int readAppended(Consumer<String> action) throws IOException {
+        int count = 0;
+        int read;
+        //bytes may still hold the start of a character cut off by the previous read
+        while ((read = channel.read(bytes, offset)) > 0) {
+            offset += read;
+            bytes.flip();
+            CoderResult result;
+            do {
+                chars.clear();
+                result = decoder.decode(bytes, chars, false);
+                chars.flip();
+                count += splitLines(action);
+            } while (result.isOverflow());
+            bytes.compact();
+        }
+        return count;
+    }
+
+    private int splitLines(Consumer<String> action) {
+        int count = 0;
+        int lineStart = 0;
+        char[] array = chars.array();
+        for (int i = 0; i < chars.limit(); i++) {
+            if (array[i] != '\n') continue;
+            partialLine.append(array, lineStart, i - lineStart);
+            int length = partialLine.length();
+            if (length > 0 && partialLine.charAt(length - 1) == '\r') {
+                partialLine.setLength(length - 1);
+            }
+            action.accept(partialLine.toString());
+            partialLine.setLength(0);
+            lineStart = i + 1;
+            count++;
+        }
+        partialLine.append(array, lineStart, chars.limit() - lineStart);
+        return count;
+    }
+
+    /**
+     * @return 1 if a partial line was passed to the action, 0 otherwise
+     */
+    private int flushPartialLine(Consumer<String> action) {
+        if (partialLine.length() == 0) return 0;
+        action.accept(partialLine.toString());
+        partialLine.setLength(0);
+        return 1;
+    }
+}
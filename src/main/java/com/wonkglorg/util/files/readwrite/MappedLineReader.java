@@ -0,0 +1,225 @@
+package com.wonkglorg.util.files.readwrite;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Reads the lines of a file through memory mapped windows without creating a {@link String} per line.
+ * <p>
+ * Mapped bytes are decoded into a reusable char buffer and every line is returned as a {@link CharSequence} view into that buffer, the view is only valid until
+ * the next call to {@link #nextLine()}, call {@link CharSequence#toString()} to keep a line. Lines end at '\n' with a trailing '\r' removed, like {@link java.io.BufferedReader#readLine()}.
+ */
+public class MappedLineReader implements Closeable {
+    /**
+     * How much of the file is mapped at once
+     */
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    private static final int INITIAL_CHAR_BUFFER = 64 * 1024;
+
+    private final FileChannel channel;
+    private final CharsetDecoder decoder;
+    private final long end;
+    private final LineView view = new LineView();
+    private MappedByteBuffer window;
+    private long windowStart;
+    /**
+     * Decoded chars waiting to be returned, always in read mode
+     */
+    private CharBuffer chars;
+    private boolean endOfInput = false;
+    private long lineNumber = 0;
+
+    /**
+     * Reads the whole file
+     *
+     * @param file    the file to read
+     * @param charset the charset of the file
+     * @throws IOException if the file could not be opened
+     */
+    public MappedLineReader(Path file, Charset charset) throws IOException {
+        this(file, charset, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Reads only the bytes from start (inclusive) to end (exclusive), both should be at the start of a line
+     *
+     * @param file    the file to read
+     * @param charset the charset of the file
+     * @param start   the byte offset to start at
+     * @param end     the byte offset to stop at, capped at the size of the file
+     * @throws IOException if the file could not be opened
+     */
+    public MappedLineReader(Path file, Charset charset, long start, long end) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.end = Math.min(end, channel.size());
+            this.decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.chars = CharBuffer.allocate(INITIAL_CHAR_BUFFER);
+            this.chars.flip();
+            map(Math.max(0, start));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next line
+     *
+     * @return a view of the line valid until the next call or null if there are no more lines
+     * @throws UncheckedIOException if the file could not be read
+     */
+    public CharSequence nextLine() {
+        char[] array = chars.array();
+        int searchFrom = chars.position();
+        while (true) {
+            int limit = chars.limit();
+            for (int i = searchFrom; i < limit; i++) {
+                if (array[i] == '\n') {
+                    return line(chars.position(), i, i + 1);
+                }
+            }
+
+            if (endOfInput) {
+                if (!chars.hasRemaining()) return null;
+                return line(chars.position(), limit, limit);
+            }
+
+            searchFrom = chars.remaining();
+            fill();
+            array = chars.array();
+        }
+    }
+
+    /**
+     * Runs the action for every remaining line, the line passed is only valid during the call
+     *
+     * @param action the action to run
+     */
+    public void forEachLine(Consumer<CharSequence> action) {
+        CharSequence line;
+        while ((line = nextLine()) != null) {
+            action.accept(line);
+        }
+    }
+
+    /**
+     * @return the amount of lines read so far
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    private CharSequence line(int start, int lineEnd, int next) {
+        int length = lineEnd - start;
+        if (length > 0 && chars.array()[lineEnd - 1] == '\r') {
+            length--;
+        }
+        chars.position(next);
+        lineNumber++;
+        view.set(chars.array(), start, length);
+        return view;
+    }
+
+    /**
+     * Moves the unread chars to the front of the buffer and decodes more bytes behind them, growing the buffer if a single line does not fit
+     */
+    private void fill() {
+        chars.compact();
+        if (!chars.hasRemaining()) {
+            CharBuffer larger = CharBuffer.allocate(chars.capacity() * 2);
+            chars.flip();
+            larger.put(chars);
+            chars = larger;
+        }
+
+        try {
+            while (chars.hasRemaining()) {
+                boolean lastWindow = windowStart + window.limit() >= end;
+                CoderResult result = decoder.decode(window, chars, lastWindow);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                if (result.isOverflow()) break;
+
+                //the window is used up apart from a possibly incomplete character at its end
+                if (lastWindow) {
+                    decoder.flush(chars);
+                    endOfInput = true;
+                    break;
+                }
+                map(windowStart + window.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            chars.flip();
+        }
+    }
+
+    private void map(long position) throws IOException {
+        windowStart = position;
+        long size = Math.max(0, Math.min(MAP_WINDOW, end - position));
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    /**
+     * A reusable view of a range of the char buffer
+     */
+    private static final class LineView implements CharSequence {
+        private char[] array;
+        private int offset;
+        private int length;
+
+        private void set(char[] array, int offset, int length) {
+            this.array = array;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return array[offset + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+            }
+            return new String(array, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(array, offset, length);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.wonkglorg.util.files.readwrite;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the lines of a file on several cores by splitting it into byte ranges that start right after a '\n', every range is read by its own
+ * {@link MappedLineReader}.
+ * <p>
+ * Splitting on bytes only works for charsets that encode '\n' as the single byte 0x0A and never use that byte inside another character (UTF-8, ASCII, ISO-8859-x and
+ * most other single or multi byte charsets), files in any other charset (like UTF-16) are read on a single core instead.
+ */
+public class ParallelLineReader {
+    /**
+     * Ranges smaller than this are not split any further
+     */
+    private static final long MIN_SPLIT_SIZE = 1024 * 1024;
+    /**
+     * How many ranges are created per thread so threads finishing early can take over work
+     */
+    private static final int RANGES_PER_THREAD = 4;
+    private static final int SCAN_BUFFER_SIZE = 8 * 1024;
+
+    private ParallelLineReader() {
+    }
+
+    /**
+     * Runs the action for every line of the file on up to the given amount of threads, the order lines are passed in is undefined.
+     * No {@link String} is created per line so the line passed is only valid during the call
+     *
+     * @param file        the file to read
+     * @param charset     the charset of the file
+     * @param parallelism the amount of threads to use
+     * @param action      the action to run for every line, has to be thread safe
+     * @throws IOException if the file could not be read
+     */
+    public static void forEachLine(Path file, Charset charset, int parallelism, Consumer<CharSequence> action) throws IOException {
+        List<long[]> ranges = split(file, charset, (long) parallelism * RANGES_PER_THREAD);
+
+        List<RecursiveAction> tasks = new ArrayList<>(ranges.size());
+        for (long[] range : ranges) {
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    try (MappedLineReader reader = new MappedLineReader(file, charset, range[0], range[1])) {
+                        reader.forEachLine(action);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Creates a stream of the lines of the file whose spliterator splits on line aligned byte ranges, so it runs well as a {@link Stream#parallel()} stream
+     * (unlike {@link java.nio.file.Files#lines(Path)} which only splits well for a few charsets). The stream keeps the order of the lines
+     *
+     * @param file    the file to read
+     * @param charset the charset of the file
+     * @return a stream of the lines, has to be closed (for example with try-with-resources)
+     * @throws IOException if the file could not be opened
+     */
+    public static Stream<String> lines(Path file, Charset charset) throws IOException {
+        long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+        }
+        Queue<MappedLineReader> openReaders = new ConcurrentLinkedQueue<>();
+        LineSpliterator spliterator = new LineSpliterator(file, charset, 0, size, isSplittable(charset), openReaders);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            MappedLineReader reader;
+            while ((reader = openReaders.poll()) != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Splits the file into up to the given amount of ranges of roughly equal size, every range starts at the beginning of a line
+     *
+     * @param file    the file to split
+     * @param charset the charset of the file, if it cannot be split on bytes a single range is returned
+     * @param count   the amount of ranges to aim for
+     * @return the ranges as start (inclusive) and end (exclusive) byte offsets
+     * @throws IOException if the file could not be read
+     */
+    public static List<long[]> split(Path file, Charset charset, long count) throws IOException {
+        List<long[]> ranges = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (!isSplittable(charset) || count <= 1 || size < 2 * MIN_SPLIT_SIZE) {
+                ranges.add(new long[]{0, size});
+                return ranges;
+            }
+
+            long step = Math.max(MIN_SPLIT_SIZE, size / count);
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            long start = 0;
+            while (start < size) {
+                long end = start + step >= size ? size : nextLineStart(channel, start + step, size, buffer);
+                ranges.add(new long[]{start, end});
+                start = end;
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * @param charset the charset to check
+     * @return true if the charset encodes '\n' as the single byte 0x0A, so files in it can be split on that byte
+     */
+    public static boolean isSplittable(Charset charset) {
+        if (!charset.canEncode()) return false;
+        try {
+            ByteBuffer encoded = charset.newEncoder().encode(CharBuffer.wrap("\n"));
+            return encoded.remaining() == 1 && encoded.get() == '\n';
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Finds the offset right after the first '\n' at or after the position
+     *
+     * @return the offset of the next line or the size of the file if there is no further line
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer buffer) throws IOException {
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Spliterator over a line aligned byte range, splitting in half at the next line start until ranges get smaller than {@link #MIN_SPLIT_SIZE}
+     */
+    private static final class LineSpliterator implements Spliterator<String> {
+        private final Path file;
+        private final Charset charset;
+        private final long end;
+        private long start;
+        private final boolean splittable;
+        private final Queue<MappedLineReader> openReaders;
+        private MappedLineReader reader;
+        private boolean finished = false;
+
+        private LineSpliterator(Path file, Charset charset, long start, long end, boolean splittable, Queue<MappedLineReader> openReaders) {
+            this.file = file;
+            this.charset = charset;
+            this.start = start;
+            this.end = end;
+            this.splittable = splittable;
+            this.openReaders = openReaders;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            if (finished) return false;
+            try {
+                if (reader == null) {
+                    reader = new MappedLineReader(file, charset, start, end);
+                    openReaders.add(reader);
+                }
+                CharSequence line = reader.nextLine();
+                if (line == null) {
+                    finished = true;
+                    openReaders.remove(reader);
+                    reader.close();
+                    return false;
+                }
+                action.accept(line.toString());
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Spliterator<String> trySplit() {
+            //can only split before reading started
+            if (!splittable || reader != null || finished || end - start < 2 * MIN_SPLIT_SIZE) return null;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long middle = nextLineStart(channel, start + (end - start) / 2, end, ByteBuffer.allocate(SCAN_BUFFER_SIZE));
+                if (middle >= end) return null;
+                //ordered spliterators hand out the first half and keep the second
+                LineSpliterator prefix = new LineSpliterator(file, charset, start, middle, true, openReaders);
+                start = middle;
+                return prefix;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            //assumes an average line of 64 bytes
+            return Math.max(1, (end - start) / 64);
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+}
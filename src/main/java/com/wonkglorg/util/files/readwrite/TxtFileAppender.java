@@ -0,0 +1,254 @@
+package com.wonkglorg.util.files.readwrite;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a file open to append lines to it, lines are encoded straight into a direct buffer and written to the {@link FileChannel} in large batches
+ * once the buffer is full or {@link #flush()} is called. Safe to use from many threads, every line is written as a whole.
+ */
+public class TxtFileAppender implements Closeable {
+    /**
+     * When written data is forced onto the storage device
+     */
+    public enum SyncPolicy {
+        /**
+         * Never forced, left to the operating system
+         */
+        NONE,
+        /**
+         * Forced after every batch written to the file
+         */
+        PER_BATCH,
+        /**
+         * Buffered lines are written and forced in a fixed interval
+         */
+        PERIODIC
+    }
+
+    private static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+    private static final long DEFAULT_SYNC_INTERVAL = 1000;
+    private static final long SYNC_SHUTDOWN_TIMEOUT = 30000;
+
+    private final FileChannel channel;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer buffer;
+    private final SyncPolicy syncPolicy;
+    private final ScheduledExecutorService syncScheduler;
+    private Consumer<Exception> exceptionHandler = e -> e.printStackTrace();
+    private boolean closed = false;
+
+    /**
+     * Opens an appender with a 1mb buffer that never forces writes
+     *
+     * @param file    the file to append to, created if it does not exist
+     * @param charset the charset to write in
+     * @throws IOException if the file could not be opened
+     */
+    public TxtFileAppender(Path file, Charset charset) throws IOException {
+        this(file, charset, DEFAULT_BUFFER_SIZE, SyncPolicy.NONE, DEFAULT_SYNC_INTERVAL);
+    }
+
+    /**
+     * @param file           the file to append to, created if it does not exist
+     * @param charset        the charset to write in
+     * @param bufferSize     the size of the buffer in bytes, lines are written once it is full
+     * @param syncPolicy     when written data is forced onto the storage device
+     * @param syncIntervalMs the interval in milliseconds for {@link SyncPolicy#PERIODIC}
+     * @throws IOException if the file could not be opened
+     */
+    public TxtFileAppender(Path file, Charset charset, int bufferSize, SyncPolicy syncPolicy, long syncIntervalMs) throws IOException {
+        if (bufferSize < 64) {
+            throw new IllegalArgumentException("Buffer size must be at least 64 but was " + bufferSize);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.syncPolicy = syncPolicy;
+
+        if (syncPolicy == SyncPolicy.PERIODIC) {
+            syncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "TxtFileAppenderSync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncScheduler.scheduleWithFixedDelay(this::periodicSync, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            syncScheduler = null;
+        }
+    }
+
+    /**
+     * Sets the handler for exceptions thrown while syncing in the background with {@link SyncPolicy#PERIODIC}
+     *
+     * @param handler the handler
+     * @return the TxtFileAppender instance
+     */
+    public TxtFileAppender onException(Consumer<Exception> handler) {
+        this.exceptionHandler = handler;
+        return this;
+    }
+
+    /**
+     * Appends a line followed by '\n'
+     *
+     * @param line the line to append
+     * @throws UncheckedIOException if the buffer could not be written to the file
+     */
+    public synchronized void append(CharSequence line) {
+        ensureOpen();
+        try {
+            encode(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends every line followed by '\n', the lines are written together without lines of other threads in between
+     *
+     * @param lines the lines to append
+     * @throws UncheckedIOException if the buffer could not be written to the file
+     */
+    public synchronized void appendAll(Iterable<? extends CharSequence> lines) {
+        ensureOpen();
+        try {
+            for (CharSequence line : lines) {
+                encode(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes all buffered lines to the file, forcing them onto the storage device for {@link SyncPolicy#PER_BATCH}
+     *
+     * @throws IOException if the lines could not be written
+     */
+    public synchronized void flush() throws IOException {
+        ensureOpen();
+        writeBuffer();
+    }
+
+    /**
+     * Writes all buffered lines to the file and forces them onto the storage device regardless of the {@link SyncPolicy}
+     *
+     * @throws IOException if the lines could not be written
+     */
+    public synchronized void sync() throws IOException {
+        ensureOpen();
+        writeBuffer();
+        channel.force(false);
+    }
+
+    /**
+     * Writes all buffered lines, forces them onto the storage device and closes the file
+     */
+    @Override
+    public void close() throws IOException {
+        if (syncScheduler != null) {
+            //interrupting a running sync would close the channel with ClosedByInterruptException and lose the buffer, so it is left to finish
+            syncScheduler.shutdown();
+            try {
+                syncScheduler.awaitTermination(SYNC_SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            try {
+                //lets stateful encoders write their final bytes
+                CharBuffer empty = CharBuffer.allocate(0);
+                while (encoder.encode(empty, buffer, true).isOverflow()) {
+                    drain();
+                }
+                while (encoder.flush(buffer).isOverflow()) {
+                    drain();
+                }
+                drain();
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private void encode(CharSequence line) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(line);
+        encodeFully(chars);
+        //a trailing high surrogate is kept back waiting for its low surrogate which never comes
+        if (chars.hasRemaining()) {
+            encodeBytes(encoder.replacement());
+        }
+        encodeFully(CharBuffer.wrap("\n"));
+    }
+
+    private void encodeFully(CharBuffer chars) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, false);
+            if (!result.isOverflow()) return;
+            writeBuffer();
+        }
+    }
+
+    private void encodeBytes(byte[] bytes) throws IOException {
+        if (buffer.remaining() < bytes.length) {
+            writeBuffer();
+        }
+        buffer.put(bytes);
+    }
+
+    /**
+     * Writes the buffer to the file as one batch
+     */
+    private void writeBuffer() throws IOException {
+        if (buffer.position() == 0) return;
+        drain();
+        if (syncPolicy == SyncPolicy.PER_BATCH) {
+            channel.force(false);
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private synchronized void periodicSync() {
+        if (closed) return;
+        try {
+            writeBuffer();
+            channel.force(false);
+        } catch (Exception e) {
+            exceptionHandler.accept(e);
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Appender is closed");
+        }
+    }
+}
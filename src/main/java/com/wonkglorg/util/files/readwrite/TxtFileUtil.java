@@ -8,6 +8,7 @@ import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 @SuppressWarnings("unused")
@@ -36,11 +37,76 @@ public class TxtFileUtil {
 		}
 	}
 
+	private Stream<String> stream() {
+		try {
+			return Files.lines(file.toPath(), charset);
+		} catch (IOException e) {
+			throw new RuntimeException("Error reading file: " + e.getMessage(), e);
+		}
+	}
+
+	private void forEach(Consumer<CharSequence> action) {
+		try (MappedLineReader reader = new MappedLineReader(file.toPath(), charset)) {
+			reader.forEachLine(action);
+		} catch (IOException e) {
+			throw new RuntimeException("Error reading file: " + e.getMessage(), e);
+		}
+	}
+
+	private void forEachParallel(int parallelism, Consumer<CharSequence> action) {
+		try {
+			ParallelLineReader.forEachLine(file.toPath(), charset, parallelism, action);
+		} catch (IOException e) {
+			throw new RuntimeException("Error reading file: " + e.getMessage(), e);
+		}
+	}
+
+	private Stream<String> parallelStream() {
+		try {
+			return ParallelLineReader.lines(file.toPath(), charset).parallel();
+		} catch (IOException e) {
+			throw new RuntimeException("Error reading file: " + e.getMessage(), e);
+		}
+	}
+
+	private MappedLineReader mappedReader() {
+		try {
+			return new MappedLineReader(file.toPath(), charset);
+		} catch (IOException e) {
+			throw new RuntimeException("Error reading file: " + e.getMessage(), e);
+		}
+	}
+
+	private List<String> readLast(int amount) {
+		try {
+			return FileTailer.lastLines(file.toPath(), charset, amount);
+		} catch (IOException e) {
+			throw new RuntimeException("Error reading file: " + e.getMessage(), e);
+		}
+	}
+
+	private FileTailer tailer(boolean fromStart) {
+		try {
+			return new FileTailer(file.toPath(), charset, fromStart);
+		} catch (IOException e) {
+			throw new RuntimeException("Error opening file: " + e.getMessage(), e);
+		}
+	}
+
+	private TxtFileAppender appender(TxtFileAppender.SyncPolicy syncPolicy) {
+		try {
+			return new TxtFileAppender(file.toPath(), charset, 1024 * 1024, syncPolicy, 1000);
+		} catch (IOException e) {
+			throw new RuntimeException("Error opening file: " + e.getMessage(), e);
+		}
+	}
+
 	private void write(WriteType type, String... text) {
 		try (BufferedWriter writer = new BufferedWriter(
 				new OutputStreamWriter(new FileOutputStream(file, type == WriteType.APPEND), charset))) {
 			for (String line : text) {
-				writer.write(line + "\n");
+				writer.write(line);
+				writer.write('\n');
 			}
 		} catch (IOException e) {
 			throw new RuntimeException(e);
@@ -70,4 +136,192 @@ public class TxtFileUtil {
 	public static List<String> readFromFile(String path, Charset charset, int amount) {
 		return new TxtFileUtil(new File(path), charset).read(amount);
 	}
+
+	/**
+	 * Reads the lines of a file lazily, only the lines consumed are read
+	 *
+	 * @param path the file to read
+	 * @param charset the charset of the file
+	 * @return a stream of the lines, has to be closed (for example with try-with-resources)
+	 */
+	public static Stream<String> streamFromFile(String path, Charset charset) {
+		return new TxtFileUtil(new File(path), charset).stream();
+	}
+
+	/**
+	 * Reads the lines of a file lazily, only the lines consumed are read
+	 *
+	 * @param file the file to read
+	 * @param charset the charset of the file
+	 * @return a stream of the lines, has to be closed (for example with try-with-resources)
+	 */
+	public static Stream<String> streamFromFile(File file, Charset charset) {
+		return new TxtFileUtil(file, charset).stream();
+	}
+
+	/**
+	 * Runs the action for every line of a file using a {@link MappedLineReader}, no {@link String} is created per line so the line passed is only valid during
+	 * the call
+	 *
+	 * @param path the file to read
+	 * @param charset the charset of the file
+	 * @param action the action to run for every line
+	 */
+	public static void forEachLine(String path, Charset charset, Consumer<CharSequence> action) {
+		new TxtFileUtil(new File(path), charset).forEach(action);
+	}
+
+	/**
+	 * Runs the action for every line of a file using a {@link MappedLineReader}, no {@link String} is created per line so the line passed is only valid during
+	 * the call
+	 *
+	 * @param file the file to read
+	 * @param charset the charset of the file
+	 * @param action the action to run for every line
+	 */
+	public static void forEachLine(File file, Charset charset, Consumer<CharSequence> action) {
+		new TxtFileUtil(file, charset).forEach(action);
+	}
+
+	/**
+	 * Opens a {@link MappedLineReader} on a file to read its lines one by one without creating a {@link String} per line
+	 *
+	 * @param path the file to read
+	 * @param charset the charset of the file
+	 * @return the reader, has to be closed
+	 */
+	public static MappedLineReader openMappedReader(String path, Charset charset) {
+		return new TxtFileUtil(new File(path), charset).mappedReader();
+	}
+
+	/**
+	 * Opens a {@link MappedLineReader} on a file to read its lines one by one without creating a {@link String} per line
+	 *
+	 * @param file the file to read
+	 * @param charset the charset of the file
+	 * @return the reader, has to be closed
+	 */
+	public static MappedLineReader openMappedReader(File file, Charset charset) {
+		return new TxtFileUtil(file, charset).mappedReader();
+	}
+
+	/**
+	 * Runs the action for every line of a file on several threads, the file is split into line aligned byte ranges read by a {@link ParallelLineReader}.
+	 * Lines are passed in no particular order and the line passed is only valid during the call
+	 *
+	 * @param path the file to read
+	 * @param charset the charset of the file
+	 * @param parallelism the amount of threads to use
+	 * @param action the action to run for every line, has to be thread safe
+	 */
+	public static void forEachLineParallel(String path, Charset charset, int parallelism, Consumer<CharSequence> action) {
+		new TxtFileUtil(new File(path), charset).forEachParallel(parallelism, action);
+	}
+
+	/**
+	 * Runs the action for every line of a file on several threads, the file is split into line aligned byte ranges read by a {@link ParallelLineReader}.
+	 * Lines are passed in no particular order and the line passed is only valid during the call
+	 *
+	 * @param file the file to read
+	 * @param charset the charset of the file
+	 * @param parallelism the amount of threads to use
+	 * @param action the action to run for every line, has to be thread safe
+	 */
+	public static void forEachLineParallel(File file, Charset charset, int parallelism, Consumer<CharSequence> action) {
+		new TxtFileUtil(file, charset).forEachParallel(parallelism, action);
+	}
+
+	/**
+	 * Reads the lines of a file as a parallel stream that splits the file on line aligned byte ranges, the stream keeps the order of the lines
+	 *
+	 * @param path the file to read
+	 * @param charset the charset of the file
+	 * @return a parallel stream of the lines, has to be closed (for example with try-with-resources)
+	 */
+	public static Stream<String> parallelStreamFromFile(String path, Charset charset) {
+		return new TxtFileUtil(new File(path), charset).parallelStream();
+	}
+
+	/**
+	 * Reads the lines of a file as a parallel stream that splits the file on line aligned byte ranges, the stream keeps the order of the lines
+	 *
+	 * @param file the file to read
+	 * @param charset the charset of the file
+	 * @return a parallel stream of the lines, has to be closed (for example with try-with-resources)
+	 */
+	public static Stream<String> parallelStreamFromFile(File file, Charset charset) {
+		return new TxtFileUtil(file, charset).parallelStream();
+	}
+
+	/**
+	 * Opens a {@link TxtFileAppender} on a file, keeping it open to append many lines without opening the file for every call like {@link #writeToFile}
+	 *
+	 * @param path the file to append to
+	 * @param charset the charset to write in
+	 * @param syncPolicy when written lines are forced onto the storage device
+	 * @return the appender, has to be closed
+	 */
+	public static TxtFileAppender openAppender(String path, Charset charset, TxtFileAppender.SyncPolicy syncPolicy) {
+		return new TxtFileUtil(new File(path), charset).appender(syncPolicy);
+	}
+
+	/**
+	 * Opens a {@link TxtFileAppender} on a file, keeping it open to append many lines without opening the file for every call like {@link #writeToFile}
+	 *
+	 * @param file the file to append to
+	 * @param charset the charset to write in
+	 * @param syncPolicy when written lines are forced onto the storage device
+	 * @return the appender, has to be closed
+	 */
+	public static TxtFileAppender openAppender(File file, Charset charset, TxtFileAppender.SyncPolicy syncPolicy) {
+		return new TxtFileUtil(file, charset).appender(syncPolicy);
+	}
+
+	/**
+	 * Reads the last lines of a file, only the end of the file is read
+	 *
+	 * @param path the file to read
+	 * @param charset the charset of the file
+	 * @param amount the amount of lines to read
+	 * @return up to the amount of last lines in order
+	 */
+	public static List<String> readLastFromFile(String path, Charset charset, int amount) {
+		return new TxtFileUtil(new File(path), charset).readLast(amount);
+	}
+
+	/**
+	 * Reads the last lines of a file, only the end of the file is read
+	 *
+	 * @param file the file to read
+	 * @param charset the charset of the file
+	 * @param amount the amount of lines to read
+	 * @return up to the amount of last lines in order
+	 */
+	public static List<String> readLastFromFile(File file, Charset charset, int amount) {
+		return new TxtFileUtil(file, charset).readLast(amount);
+	}
+
+	/**
+	 * Opens a {@link FileTailer} following a growing file, each poll only reads the bytes appended since the last one
+	 *
+	 * @param path the file to follow
+	 * @param charset the charset of the file
+	 * @param fromStart true to also return the lines already in the file, false to only return lines appended from now on
+	 * @return the tailer, has to be closed
+	 */
+	public static FileTailer tailFile(String path, Charset charset, boolean fromStart) {
+		return new TxtFileUtil(new File(path), charset).tailer(fromStart);
+	}
+
+	/**
+	 * Opens a {@link FileTailer} following a growing file, each poll only reads the bytes appended since the last one
+	 *
+	 * @param file the file to follow
+	 * @param charset the charset of the file
+	 * @param fromStart true to also return the lines already in the file, false to only return lines appended from now on
+	 * @return the tailer, has to be closed
+	 */
+	public static FileTailer tailFile(File file, Charset charset, boolean fromStart) {
+		return new TxtFileUtil(file, charset).tailer(fromStart);
+	}
 }
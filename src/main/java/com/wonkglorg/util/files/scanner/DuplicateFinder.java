@@ -0,0 +1,314 @@
+package com.wonkglorg.util.files.scanner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Finds files with identical contents among the results of a {@link FileScanner.MultiResultScanner}.
+ * <p>
+ * Files are first grouped by size (taken from the attributes read while scanning), files sharing a size are then hashed on only their first and last block,
+ * and only files still colliding after that have their full contents hashed. All reads use memory mapped I/O and run on a separate pool per disk
+ * ({@link FileStore}) so disks are read in parallel without having many threads seek on the same disk.
+ * <p>
+ * A file reached through several paths (hard links, symbolic links or overlapping search paths) is only compared once, under the first path it was found by,
+ * so every path in a group is a separate copy that can be deleted without losing the contents.
+ */
+public class DuplicateFinder {
+    /**
+     * How much of a file is mapped at once while computing a full hash
+     */
+    private static final long MAP_CHUNK = 64L * 1024 * 1024;
+
+    private final FileScanner.MultiResultScanner scanner;
+    private int blockSize = 64 * 1024;
+    private int threadsPerDisk = 2;
+    private String algorithm = "SHA-256";
+    private long minSize = 1;
+    private Consumer<Exception> exceptionHandler = e -> e.printStackTrace();
+
+    /**
+     * @param scanner the scanner providing the files to compare, only regular files of its results are compared
+     */
+    public DuplicateFinder(FileScanner.MultiResultScanner scanner) {
+        this.scanner = scanner;
+    }
+
+    /**
+     * Sets the size of the first and last block hashed to rule out files before hashing their full contents (default: 64kb)
+     *
+     * @param blockSize the block size in bytes
+     * @return the DuplicateFinder instance
+     */
+    public DuplicateFinder blockSize(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1 but was " + blockSize);
+        }
+        this.blockSize = blockSize;
+        return this;
+    }
+
+    /**
+     * Sets how many files are read at the same time per disk (default: 2)
+     *
+     * @param threadsPerDisk the amount of threads per disk
+     * @return the DuplicateFinder instance
+     */
+    public DuplicateFinder threadsPerDisk(int threadsPerDisk) {
+        if (threadsPerDisk < 1) {
+            throw new IllegalArgumentException("Threads per disk must be at least 1 but was " + threadsPerDisk);
+        }
+        this.threadsPerDisk = threadsPerDisk;
+        return this;
+    }
+
+    /**
+     * Sets the {@link MessageDigest} algorithm used for hashing (default: SHA-256)
+     *
+     * @param algorithm the name of the algorithm
+     * @return the DuplicateFinder instance
+     * @throws NoSuchAlgorithmException if the algorithm is not available
+     */
+    public DuplicateFinder algorithm(String algorithm) throws NoSuchAlgorithmException {
+        MessageDigest.getInstance(algorithm);
+        this.algorithm = algorithm;
+        return this;
+    }
+
+    /**
+     * Ignores files smaller than the given size, by default empty files are ignored (default: 1)
+     *
+     * @param minSize the minimum size in bytes
+     * @return the DuplicateFinder instance
+     */
+    public DuplicateFinder minSize(long minSize) {
+        this.minSize = Math.max(0, minSize);
+        return this;
+    }
+
+    /**
+     * Sets the handler for files that could not be read, those files are left out of the result
+     *
+     * @param handler the handler
+     * @return the DuplicateFinder instance
+     */
+    public DuplicateFinder onException(Consumer<Exception> handler) {
+        this.exceptionHandler = handler;
+        return this;
+    }
+
+    /**
+     * Scans for files and groups those with identical contents
+     *
+     * @return every group of at least 2 identical files, the groups wasting the most space first
+     */
+    public List<DuplicateGroup> find() {
+        Map<Long, List<Path>> bySize = new HashMap<>();
+        Set<Object> seenFiles = new HashSet<>();
+        scanner.search(scanner.createRootPaths(), entry -> {
+            //hard links, followed symbolic links and overlapping roots reach the same file more than once, it must never be its own duplicate
+            if (entry.attributes().isRegularFile() && entry.attributes().size() >= minSize && seenFiles.add(identityOf(entry))) {
+                bySize.computeIfAbsent(entry.attributes().size(), size -> new ArrayList<>(2)).add(entry.path());
+            }
+            return true;
+        });
+        seenFiles.clear();
+
+        List<Candidate> candidates = new ArrayList<>();
+        bySize.forEach((size, files) -> {
+            if (files.size() < 2) return;
+            for (Path file : files) {
+                candidates.add(new Candidate(file, size));
+            }
+        });
+        bySize.clear();
+
+        List<List<Candidate>> groups = regroup(candidates, false);
+
+        //files not larger than the first and last block were already hashed in full
+        List<DuplicateGroup> duplicates = new ArrayList<>();
+        List<Candidate> needFullHash = new ArrayList<>();
+        for (List<Candidate> group : groups) {
+            if (group.get(0).size() <= 2L * blockSize) {
+                duplicates.add(toDuplicateGroup(group));
+            } else {
+                needFullHash.addAll(group);
+            }
+        }
+
+        for (List<Candidate> group : regroup(needFullHash, true)) {
+            duplicates.add(toDuplicateGroup(group));
+        }
+
+        duplicates.sort(Comparator.comparingLong(DuplicateGroup::wastedBytes).reversed());
+        return duplicates;
+    }
+
+    /**
+     * Hashes all candidates and groups them by size and hash
+     *
+     * @param candidates the files to hash
+     * @param fullHash   true to hash the full contents, false to hash only the first and last block
+     * @return all groups with at least 2 files
+     */
+    private List<List<Candidate>> regroup(List<Candidate> candidates, boolean fullHash) {
+        Map<Candidate, ByteBuffer> hashes = hashPerDisk(candidates, fullHash);
+
+        Map<HashKey, List<Candidate>> groups = new HashMap<>();
+        for (Candidate candidate : candidates) {
+            ByteBuffer hash = hashes.get(candidate);
+            if (hash == null) continue;
+            groups.computeIfAbsent(new HashKey(candidate.size(), hash), key -> new ArrayList<>(2)).add(candidate);
+        }
+
+        List<List<Candidate>> result = new ArrayList<>();
+        for (List<Candidate> group : groups.values()) {
+            if (group.size() > 1) result.add(group);
+        }
+        return result;
+    }
+
+    /**
+     * Hashes the candidates on a separate pool of {@link #threadsPerDisk} threads for each disk
+     *
+     * @return the hash of every candidate that could be read
+     */
+    private Map<Candidate, ByteBuffer> hashPerDisk(List<Candidate> candidates, boolean fullHash) {
+        Map<Candidate, ByteBuffer> hashes = new ConcurrentHashMap<>();
+        if (candidates.isEmpty()) return hashes;
+
+        Map<Path, FileStore> storePerDirectory = new HashMap<>();
+        Map<FileStore, ExecutorService> pools = new HashMap<>();
+        ExecutorService unknownStorePool = null;
+        try {
+            for (Candidate candidate : candidates) {
+                FileStore store = storePerDirectory.computeIfAbsent(candidate.path().getParent(), DuplicateFinder::fileStoreOf);
+                ExecutorService pool;
+                if (store == null) {
+                    if (unknownStorePool == null) unknownStorePool = Executors.newFixedThreadPool(threadsPerDisk);
+                    pool = unknownStorePool;
+                } else {
+                    pool = pools.computeIfAbsent(store, key -> Executors.newFixedThreadPool(threadsPerDisk));
+                }
+                pool.execute(() -> {
+                    try {
+                        byte[] hash = hash(candidate, fullHash);
+                        if (hash != null) {
+                            hashes.put(candidate, ByteBuffer.wrap(hash));
+                        }
+                    } catch (Exception e) {
+                        exceptionHandler.accept(e);
+                    }
+                });
+            }
+        } finally {
+            List<ExecutorService> allPools = new ArrayList<>(pools.values());
+            if (unknownStorePool != null) allPools.add(unknownStorePool);
+            allPools.forEach(ExecutorService::shutdown);
+            try {
+                for (ExecutorService pool : allPools) {
+                    pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                allPools.forEach(ExecutorService::shutdownNow);
+                Thread.currentThread().interrupt();
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Hashes a file through memory mapped I/O
+     *
+     * @param candidate the file to hash
+     * @param fullHash  true to hash the full contents, false to only hash the first and last block (files not larger than both blocks are always hashed in full)
+     * @return the hash or null if the size of the file changed since it was scanned
+     */
+    private byte[] hash(Candidate candidate, boolean fullHash) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance(algorithm);
+        try (FileChannel channel = FileChannel.open(candidate.path(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size != candidate.size()) return null;
+
+            if (fullHash || size <= 2L * blockSize) {
+                for (long position = 0; position < size; position += MAP_CHUNK) {
+                    digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_CHUNK, size - position)));
+                }
+            } else {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, blockSize));
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, size - blockSize, blockSize));
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * @return the file key of the entry, or its real path on file systems without file keys
+     */
+    private static Object identityOf(ScanEntry entry) {
+        Object fileKey = entry.attributes().fileKey();
+        if (fileKey != null) return fileKey;
+        try {
+            return entry.path().toRealPath();
+        } catch (IOException | SecurityException e) {
+            return entry.path().toAbsolutePath().normalize();
+        }
+    }
+
+    private static FileStore fileStoreOf(Path directory) {
+        try {
+            return directory == null ? null : Files.getFileStore(directory);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static DuplicateGroup toDuplicateGroup(List<Candidate> group) {
+        List<Path> files = new ArrayList<>(group.size());
+        for (Candidate candidate : group) {
+            files.add(candidate.path());
+        }
+        files.sort(null);
+        return new DuplicateGroup(group.get(0).size(), files);
+    }
+
+    private record Candidate(Path path, long size) {
+    }
+
+    private record HashKey(long size, ByteBuffer hash) {
+    }
+
+    /**
+     * A group of files with identical contents
+     *
+     * @param size  the size of each file in bytes
+     * @param files the files, sorted by path
+     */
+    public record DuplicateGroup(long size, List<Path> files) {
+
+        /**
+         * @return how many bytes could be freed by keeping only one of the files
+         */
+        public long wastedBytes() {
+            return size * (files.size() - 1);
+        }
+    }
+}
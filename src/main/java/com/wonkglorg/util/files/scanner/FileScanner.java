@@ -1,10 +1,17 @@
 package com.wonkglorg.util.files.scanner;
 
-import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @SuppressWarnings("unused")
 public class FileScanner extends Scanner<FileScanner> {
@@ -29,19 +36,14 @@ public class FileScanner extends Scanner<FileScanner> {
 
 
     public static class MultiResultScanner extends Scanner<MultiResultScanner> {
-        private int maxFileCount;
 
         public MultiResultScanner() {
             this.maxFileCount = -1;
         }
 
         public MultiResultScanner(Scanner scanner) {
-            this.depthLimit = scanner.depthLimit;
-            this.fileFilter = scanner.fileFilter;
+            copySettings(scanner);
             this.maxFileCount = -1;
-            this.scanType = scanner.scanType;
-            this.pathsToSearch = scanner.pathsToSearch;
-            this.scanAll = scanner.scanAll;
         }
 
         /**
@@ -61,16 +63,85 @@ public class FileScanner extends Scanner<FileScanner> {
          * @return
          */
         public List<Path> find() {
-            List<File> paths = createFilePaths();
             List<Path> results = new ArrayList<>();
+            find(results::add);
+            return results;
+        }
 
+        /**
+         * searches for files given the parameters, passing every result to the action as soon as it is found, the search stops once the {@link #limit(int)} is reached
+         *
+         * @param action the action to run for every result (never called concurrently, even when scanning in parallel)
+         */
+        public void find(Consumer<Path> action) {
+            AtomicInteger found = new AtomicInteger();
+            search(createRootPaths(), entry -> {
+                if (maxFileCount != -1 && found.get() >= maxFileCount) {
+                    return false;
+                }
+                action.accept(entry.path());
+                return maxFileCount == -1 || found.incrementAndGet() < maxFileCount;
+            });
+        }
 
-            switch (scanType) {
-                case WIDTH -> wideFirstSearch(paths, results);
-                case DEPTH -> depthFirstSearch(paths, results);
-            }
+        /**
+         * searches for files given the parameters lazily, the scan only advances as far as needed to return the next result and stops once the {@link #limit(int)} is reached
+         *
+         * @return an iterator over the results, has to be closed if it is not fully consumed
+         */
+        public ScanIterator<Path> iterator() {
+            ScanIterator<ScanEntry> entries = entryIterator(createRootPaths());
+            return new ScanIterator<>() {
+                private int found = 0;
+
+                @Override
+                public boolean hasNext() {
+                    if (maxFileCount != -1 && found >= maxFileCount) {
+                        entries.close();
+                        return false;
+                    }
+                    return entries.hasNext();
+                }
+
+                @Override
+                public Path next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    found++;
+                    return entries.next().path();
+                }
+
+                @Override
+                public void close() {
+                    entries.close();
+                }
+            };
+        }
 
-            return results;
+        /**
+         * searches for files given the parameters using an index file from the previous call, only directories whose last modified time changed since then are listed again
+         * (see {@link ScanIndex} for what is and is not detected). The first call with a new index file scans everything and reports all results as added.
+         * Always runs sequentially and ignores the {@link #limit(int)}
+         *
+         * @param indexFile the file the index is kept in, updated after every call
+         * @return the results added, removed and changed since the previous call together with all current results
+         * @throws IOException if the index could not be read or written
+         */
+        public IncrementalScanResult findIncremental(Path indexFile) throws IOException {
+            ScanIndex index = ScanIndex.load(indexFile);
+            IncrementalScanResult result = index.rescan(this, createRootPaths());
+            index.save(indexFile);
+            return result;
+        }
+
+        /**
+         * searches for files given the parameters lazily, see {@link #iterator()}
+         *
+         * @return a stream of the results, has to be closed (for example with try-with-resources) if it is not fully consumed
+         */
+        public Stream<Path> stream() {
+            ScanIterator<Path> iterator = iterator();
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(iterator::close);
         }
 
 
@@ -79,22 +150,18 @@ public class FileScanner extends Scanner<FileScanner> {
     public class SingleResultScanner extends Scanner<SingleResultScanner> {
 
         public SingleResultScanner(Scanner scanner) {
-            this.depthLimit = scanner.depthLimit;
-            this.fileFilter = scanner.fileFilter;
-            this.scanType = scanner.scanType;
-            this.pathsToSearch = scanner.pathsToSearch;
-            this.scanAll = scanner.scanAll;
+            copySettings(scanner);
         }
 
 
         public Optional<Path> find() {
-            List<File> paths = createFilePaths();
-            List<Path> results = new ArrayList<>();
+            List<Path> results = new ArrayList<>(1);
 
-            switch (scanType) {
-                case WIDTH -> wideFirstSearch(paths, results);
-                case DEPTH -> depthFirstSearch(paths, results);
-            }
+            //stops at the first result
+            search(createRootPaths(), entry -> {
+                results.add(entry.path());
+                return false;
+            });
 
             if (results.isEmpty()) {
                 return Optional.empty();
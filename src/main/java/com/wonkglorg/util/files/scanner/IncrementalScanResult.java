@@ -0,0 +1,22 @@
+package com.wonkglorg.util.files.scanner;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The result of a {@link FileScanner.MultiResultScanner#findIncremental(Path)}, all lists only contain paths matching the filters of the scanner
+ *
+ * @param added   paths that did not exist during the previous scan
+ * @param removed paths that existed during the previous scan but no longer do
+ * @param changed files whose size or last modified time changed since the previous scan
+ * @param all     every path currently matching, the same as {@link FileScanner.MultiResultScanner#find()} would return
+ */
+public record IncrementalScanResult(List<Path> added, List<Path> removed, List<Path> changed, List<Path> all) {
+
+    /**
+     * @return true if nothing changed since the previous scan
+     */
+    public boolean isUnchanged() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+}
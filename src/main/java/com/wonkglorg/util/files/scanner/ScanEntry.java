@@ -0,0 +1,14 @@
+package com.wonkglorg.util.files.scanner;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * A single file or directory found while scanning
+ *
+ * @param path       the path of the entry
+ * @param attributes the attributes of the entry, read once when it was listed
+ * @param depth      how deep the entry is relative to the path the scan started from (0 = the path itself)
+ */
+public record ScanEntry(Path path, BasicFileAttributes attributes, int depth) {
+}
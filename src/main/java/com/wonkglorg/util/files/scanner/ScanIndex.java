@@ -0,0 +1,383 @@
+package com.wonkglorg.util.files.scanner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * An on disk record of the last modified time and contents of every scanned directory, used to rescan a tree while only listing the directories that changed.
+ * <p>
+ * A directory's last modified time only changes when entries are added, removed or renamed inside of it, so an unchanged directory reuses its recorded contents
+ * and only its sub directories are read again to check them in turn. Content changes of files inside an unchanged directory are therefore not picked up,
+ * files are only reported as changed when their directory was listed again or when their attributes were read again for the scanner's size, modification or
+ * attribute filters.
+ * <p>
+ * File systems store the last modified time in coarse steps (2 seconds on FAT), so an entry added right after a directory was listed may not change its time.
+ * Directories modified within {@link #MTIME_GRANULARITY} of being listed are therefore listed again on the next rescan. Removed entries are matched against the
+ * filters with their recorded attributes, as they can no longer be read.
+ */
+public class ScanIndex {
+    private static final int MAGIC = 0x53434E32;
+    /**
+     * Indexes written before the listing time was recorded, all their directories are listed again once
+     */
+    private static final int MAGIC_WITHOUT_LISTING_TIME = 0x53434E31;
+    /**
+     * The coarsest last modified time resolution of common file systems in milliseconds
+     */
+    private static final long MTIME_GRANULARITY = 2000;
+    /**
+     * Key of the record holding the scanned root paths themselves, roots are always read again
+     */
+    private static final String ROOTS_KEY = "";
+
+    private Map<String, DirectoryRecord> directories;
+
+    public ScanIndex() {
+        this.directories = new HashMap<>();
+    }
+
+    private ScanIndex(Map<String, DirectoryRecord> directories) {
+        this.directories = directories;
+    }
+
+    /**
+     * Loads an index saved with {@link #save(Path)}
+     *
+     * @param file the file to load
+     * @return the loaded index or an empty index if the file does not exist
+     * @throws IOException if the file could not be read or is not a scan index
+     */
+    public static ScanIndex load(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return new ScanIndex();
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            int magic = in.readInt();
+            if (magic != MAGIC && magic != MAGIC_WITHOUT_LISTING_TIME) {
+                throw new IOException("Not a scan index: " + file);
+            }
+            int directoryCount = in.readInt();
+            Map<String, DirectoryRecord> directories = new HashMap<>(Math.max(16, directoryCount * 2));
+            for (int i = 0; i < directoryCount; i++) {
+                String directory = readString(in);
+                long lastModified = in.readLong();
+                long listedAt = magic == MAGIC ? in.readLong() : 0;
+                int entryCount = in.readInt();
+                List<IndexedEntry> entries = new ArrayList<>(entryCount);
+                for (int j = 0; j < entryCount; j++) {
+                    entries.add(new IndexedEntry(readString(in), in.readBoolean(), in.readLong(), in.readLong()));
+                }
+                directories.put(directory, new DirectoryRecord(lastModified, listedAt, entries));
+            }
+            return new ScanIndex(directories);
+        }
+    }
+
+    /**
+     * Saves the index, it is written to a temporary file first and then moved in place so a crash while saving never leaves a broken index behind
+     *
+     * @param file the file to save to
+     * @throws IOException if the file could not be written
+     */
+    public void save(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(directories.size());
+            for (Map.Entry<String, DirectoryRecord> directory : directories.entrySet()) {
+                writeString(out, directory.getKey());
+                out.writeLong(directory.getValue().lastModified());
+                out.writeLong(directory.getValue().listedAt());
+                out.writeInt(directory.getValue().entries().size());
+                for (IndexedEntry entry : directory.getValue().entries()) {
+                    writeString(out, entry.name());
+                    out.writeBoolean(entry.directory());
+                    out.writeLong(entry.size());
+                    out.writeLong(entry.lastModified());
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the amount of directories in this index
+     */
+    public int size() {
+        return directories.size();
+    }
+
+    /**
+     * Scans the roots using the settings of the scanner, only listing directories whose last modified time changed since this index was last updated,
+     * and replaces the contents of this index with the result
+     *
+     * @param scanner the scanner providing the filters and depth limit
+     * @param roots   the paths to scan
+     * @return the paths added, removed and changed since the previous scan together with all current results
+     */
+    public IncrementalScanResult rescan(Scanner<?> scanner, List<Path> roots) {
+        Map<String, DirectoryRecord> previous = directories;
+        Map<String, DirectoryRecord> current = new HashMap<>(Math.max(16, previous.size() * 2));
+        List<Path> added = new ArrayList<>();
+        List<Path> removed = new ArrayList<>();
+        List<Path> changed = new ArrayList<>();
+        List<Path> all = new ArrayList<>();
+
+        //the roots are treated as the contents of a virtual directory that is always read again
+        List<ScanEntry> rootEntries = new ArrayList<>();
+        List<IndexedEntry> rootRecords = new ArrayList<>();
+        for (Path root : roots) {
+            ScanEntry entry = scanner.createRootEntry(root);
+            if (entry == null) continue;
+            rootEntries.add(entry);
+            rootRecords.add(IndexedEntry.of(root.toString(), entry.attributes()));
+        }
+        current.put(ROOTS_KEY, new DirectoryRecord(-1, System.currentTimeMillis(), rootRecords));
+        compare(scanner, null, previous.get(ROOTS_KEY), rootEntries, previous, added, removed, changed);
+
+        Queue<ScanEntry> queue = new ArrayDeque<>();
+        for (ScanEntry entry : rootEntries) {
+            if (scanner.matchesCriteria(entry)) all.add(entry.path());
+            queue.offer(entry);
+        }
+
+        while (!queue.isEmpty()) {
+            ScanEntry directory = queue.poll();
+            if (!scanner.canDescend(directory)) continue;
+
+            String key = directory.path().toString();
+            DirectoryRecord record = previous.get(key);
+            long lastModified = directory.attributes().lastModifiedTime().toMillis();
+            List<ScanEntry> children;
+
+            if (record != null && record.lastModified() == lastModified && record.listedAt() - lastModified > MTIME_GRANULARITY) {
+                boolean restat = needsFreshAttributes(scanner);
+                children = reuse(scanner, directory, record, restat, previous, removed, changed);
+                if (children.size() != record.entries().size()) {
+                    //an entry vanished without the directory changing, forces a full listing next time
+                    current.put(key, new DirectoryRecord(-1, record.listedAt(), toEntries(children)));
+                } else if (restat) {
+                    current.put(key, new DirectoryRecord(lastModified, record.listedAt(), toEntries(children)));
+                } else {
+                    current.put(key, record);
+                }
+            } else {
+                //taken before listing so anything added during or after the listing changes the directory to a later time
+                long listedAt = System.currentTimeMillis();
+                children = scanner.listDirectory(directory);
+                current.put(key, new DirectoryRecord(lastModified, listedAt, toEntries(children)));
+                compare(scanner, directory, record, children, previous, added, removed, changed);
+            }
+
+            for (ScanEntry child : children) {
+                if (scanner.matchesCriteria(child)) all.add(child.path());
+                if (child.attributes().isDirectory()) queue.offer(child);
+            }
+        }
+
+        directories = current;
+        return new IncrementalScanResult(added, removed, changed, all);
+    }
+
+    /**
+     * Creates the entries of an unchanged directory from its record, only sub directories are read again since their own contents may have changed
+     *
+     * @param restat true to read the attributes of files again instead of using the recorded ones, files whose size or modification time differs are reported as
+     *               changed
+     */
+    private List<ScanEntry> reuse(Scanner<?> scanner, ScanEntry directory, DirectoryRecord record, boolean restat, Map<String, DirectoryRecord> previous,
+                                  List<Path> removed, List<Path> changed) {
+        List<ScanEntry> children = new ArrayList<>(record.entries().size());
+        int depth = directory.depth() + 1;
+        for (IndexedEntry entry : record.entries()) {
+            Path path = directory.path().resolve(entry.name());
+            //excluded after the directory was recorded, treated as gone like a vanished sub directory
+            if (scanner.rules.isExcluded(path)) continue;
+            BasicFileAttributes attributes;
+            if (entry.directory() || restat) {
+                attributes = Scanner.readAttributes(path);
+                if (attributes == null) {
+                    collectRemoved(scanner, path, entry, depth, previous, removed);
+                    continue;
+                }
+            } else {
+                attributes = new IndexedAttributes(entry);
+            }
+            ScanEntry child = new ScanEntry(path, attributes, depth);
+            if (restat && !entry.directory() && isModified(entry, attributes) && scanner.matchesCriteria(child)) {
+                changed.add(path);
+            }
+            children.add(child);
+        }
+        return children;
+    }
+
+    /**
+     * Size and modification rules or attribute filters would otherwise judge files by their attributes from when the directory was last listed
+     */
+    private static boolean needsFreshAttributes(Scanner<?> scanner) {
+        return scanner.rules.hasAttributeRules() || !scanner.attributeFilter.isEmpty();
+    }
+
+    private static boolean isModified(IndexedEntry entry, BasicFileAttributes attributes) {
+        return entry.size() != attributes.size() || entry.lastModified() != attributes.lastModifiedTime().toMillis();
+    }
+
+    private static List<IndexedEntry> toEntries(List<ScanEntry> children) {
+        List<IndexedEntry> entries = new ArrayList<>(children.size());
+        for (ScanEntry child : children) {
+            entries.add(IndexedEntry.of(child.path().getFileName().toString(), child.attributes()));
+        }
+        return entries;
+    }
+
+    /**
+     * Compares the freshly listed contents of a directory against its previous record
+     *
+     * @param directory the directory that was listed or null for the roots
+     */
+    private void compare(Scanner<?> scanner, ScanEntry directory, DirectoryRecord record, List<ScanEntry> children, Map<String, DirectoryRecord> previous,
+                         List<Path> added, List<Path> removed, List<Path> changed) {
+        Map<String, IndexedEntry> before = new HashMap<>();
+        if (record != null) {
+            for (IndexedEntry entry : record.entries()) {
+                before.put(entry.name(), entry);
+            }
+        }
+
+        for (ScanEntry child : children) {
+            String name = directory == null ? child.path().toString() : child.path().getFileName().toString();
+            IndexedEntry old = before.remove(name);
+            boolean matches = scanner.matchesCriteria(child);
+            if (old == null) {
+                if (matches) added.add(child.path());
+            } else if (old.directory() != child.attributes().isDirectory()) {
+                collectRemoved(scanner, child.path(), old, child.depth(), previous, removed);
+                if (matches) added.add(child.path());
+            } else if (!old.directory() && isModified(old, child.attributes())) {
+                if (matches) changed.add(child.path());
+            }
+        }
+
+        for (IndexedEntry old : before.values()) {
+            Path path = directory == null ? Path.of(old.name()) : directory.path().resolve(old.name());
+            int depth = directory == null ? 0 : directory.depth() + 1;
+            collectRemoved(scanner, path, old, depth, previous, removed);
+        }
+    }
+
+    /**
+     * Marks an entry that no longer exists as removed, together with everything that was recorded inside of it
+     */
+    private void collectRemoved(Scanner<?> scanner, Path path, IndexedEntry entry, int depth, Map<String, DirectoryRecord> previous, List<Path> removed) {
+        if (scanner.matchesCriteria(new ScanEntry(path, new IndexedAttributes(entry), depth))) {
+            removed.add(path);
+        }
+        if (!entry.directory()) return;
+
+        DirectoryRecord record = previous.get(path.toString());
+        if (record == null) return;
+        for (IndexedEntry child : record.entries()) {
+            collectRemoved(scanner, path.resolve(child.name()), child, depth + 1, previous, removed);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param lastModified the last modified time of the directory when it was listed, -1 to list it again next time
+     * @param listedAt     the time the directory was listed
+     * @param entries      the entries of the directory
+     */
+    private record DirectoryRecord(long lastModified, long listedAt, List<IndexedEntry> entries) {
+    }
+
+    private record IndexedEntry(String name, boolean directory, long size, long lastModified) {
+
+        private static IndexedEntry of(String name, BasicFileAttributes attributes) {
+            return new IndexedEntry(name, attributes.isDirectory(), attributes.size(), attributes.lastModifiedTime().toMillis());
+        }
+    }
+
+    /**
+     * The recorded attributes of an entry that was not read again
+     */
+    private record IndexedAttributes(IndexedEntry entry) implements BasicFileAttributes {
+
+        @Override
+        public FileTime lastModifiedTime() {
+            return FileTime.fromMillis(entry.lastModified());
+        }
+
+        @Override
+        public FileTime lastAccessTime() {
+            return lastModifiedTime();
+        }
+
+        @Override
+        public FileTime creationTime() {
+            return lastModifiedTime();
+        }
+
+        @Override
+        public boolean isRegularFile() {
+            return !entry.directory();
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return entry.directory();
+        }
+
+        @Override
+        public boolean isSymbolicLink() {
+            return false;
+        }
+
+        @Override
+        public boolean isOther() {
+            return false;
+        }
+
+        @Override
+        public long size() {
+            return entry.size();
+        }
+
+        @Override
+        public Object fileKey() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.wonkglorg.util.files.scanner;
+
+import java.util.Iterator;
+
+/**
+ * An iterator over scan results that finds the next result only when it is requested, has to be closed once no longer needed so a scan running in the background
+ * (see {@link Scanner#parallel(int)}) is stopped
+ *
+ * @param <E> the type of result
+ */
+public interface ScanIterator<E> extends Iterator<E>, AutoCloseable {
+
+    /**
+     * Stops the scan, no further results are returned afterwards
+     */
+    @Override
+    void close();
+}
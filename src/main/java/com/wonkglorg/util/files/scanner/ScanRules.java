@@ -0,0 +1,188 @@
+package com.wonkglorg.util.files.scanner;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Declarative include and exclude rules of a {@link Scanner}, every rule is compiled once when it is added.
+ * <p>
+ * Exclude rules only look at the path, so they are checked before an entry's attributes are even read and an excluded directory is never listed.
+ * Include rules, size and modification ranges decide which of the remaining entries are returned as results without stopping the scanner from descending.
+ * <ul>
+ *     <li>Globs without a '/' are matched against the file name, exact names (no glob characters) are looked up in a hash set</li>
+ *     <li>Globs containing a '/' are matched against the whole path, for example "**&#47;build/tmp"</li>
+ *     <li>Regular expressions are searched for anywhere in the whole path</li>
+ * </ul>
+ */
+public class ScanRules {
+    private static final Pattern GLOB_CHARACTERS = Pattern.compile("[*?\\[\\]{}\\\\]");
+
+    private final Set<String> excludedNames = new HashSet<>();
+    private final List<PathMatcher> excludedNameGlobs = new ArrayList<>();
+    private final List<PathMatcher> excludedPathGlobs = new ArrayList<>();
+    private final List<Pattern> excludedRegexes = new ArrayList<>();
+
+    private final Set<String> includedNames = new HashSet<>();
+    private final List<PathMatcher> includedNameGlobs = new ArrayList<>();
+    private final List<PathMatcher> includedPathGlobs = new ArrayList<>();
+    private final List<Pattern> includedRegexes = new ArrayList<>();
+
+    private long minSize = -1;
+    private long maxSize = Long.MAX_VALUE;
+    private long modifiedFrom = Long.MIN_VALUE;
+    private long modifiedTo = Long.MAX_VALUE;
+
+    /**
+     * Excludes every file and directory matching the glob, excluded directories are not descended into
+     *
+     * @param glob the glob to exclude
+     */
+    public void exclude(String glob) {
+        addGlob(glob, excludedNames, excludedNameGlobs, excludedPathGlobs);
+    }
+
+    /**
+     * Excludes every file and directory whose path contains a match of the regex, excluded directories are not descended into
+     *
+     * @param regex the regex to exclude
+     */
+    public void excludeRegex(String regex) {
+        excludedRegexes.add(Pattern.compile(regex));
+    }
+
+    /**
+     * Only returns results matching at least one include rule
+     *
+     * @param glob the glob to include
+     */
+    public void include(String glob) {
+        addGlob(glob, includedNames, includedNameGlobs, includedPathGlobs);
+    }
+
+    /**
+     * Only returns results matching at least one include rule
+     *
+     * @param regex the regex whose match has to be contained in the path
+     */
+    public void includeRegex(String regex) {
+        includedRegexes.add(Pattern.compile(regex));
+    }
+
+    /**
+     * Only returns files (no directories) whose size is within the range
+     *
+     * @param min the minimum size in bytes (inclusive)
+     * @param max the maximum size in bytes (inclusive)
+     */
+    public void size(long min, long max) {
+        this.minSize = Math.max(0, min);
+        this.maxSize = max;
+    }
+
+    /**
+     * Only returns results last modified within the range
+     *
+     * @param from the earliest modification time in epoch milliseconds (inclusive)
+     * @param to   the latest modification time in epoch milliseconds (inclusive)
+     */
+    public void modified(long from, long to) {
+        this.modifiedFrom = from;
+        this.modifiedTo = to;
+    }
+
+    /**
+     * Checks only the path of an entry, meant to be called before its attributes are read
+     *
+     * @param path the path to check
+     * @return true if the entry and everything inside of it should be skipped
+     */
+    public boolean isExcluded(Path path) {
+        Path name = path.getFileName();
+        if (name != null && !excludedNames.isEmpty() && excludedNames.contains(name.toString())) return true;
+        if (name != null && matchesAny(excludedNameGlobs, name)) return true;
+        if (matchesAny(excludedPathGlobs, path)) return true;
+        return !excludedRegexes.isEmpty() && containsAny(excludedRegexes, path.toString());
+    }
+
+    /**
+     * @param path       the path of the entry
+     * @param attributes the attributes of the entry
+     * @return true if the entry passes the include, size and modification rules
+     */
+    public boolean accepts(Path path, BasicFileAttributes attributes) {
+        if (minSize >= 0) {
+            if (attributes.isDirectory()) return false;
+            long size = attributes.size();
+            if (size < minSize || size > maxSize) return false;
+        }
+
+        if (modifiedFrom != Long.MIN_VALUE || modifiedTo != Long.MAX_VALUE) {
+            long modified = attributes.lastModifiedTime().toMillis();
+            if (modified < modifiedFrom || modified > modifiedTo) return false;
+        }
+
+        if (!hasIncludes()) return true;
+
+        Path name = path.getFileName();
+        if (name != null && includedNames.contains(name.toString())) return true;
+        if (name != null && matchesAny(includedNameGlobs, name)) return true;
+        if (matchesAny(includedPathGlobs, path)) return true;
+        return containsAny(includedRegexes, path.toString());
+    }
+
+    /**
+     * @return true if no rule has been added
+     */
+    public boolean isEmpty() {
+        return !hasExcludes() && !hasIncludes() && minSize < 0 && modifiedFrom == Long.MIN_VALUE && modifiedTo == Long.MAX_VALUE;
+    }
+
+    /**
+     * @return true if at least one exclude rule has been added
+     */
+    public boolean hasExcludes() {
+        return !excludedNames.isEmpty() || !excludedNameGlobs.isEmpty() || !excludedPathGlobs.isEmpty() || !excludedRegexes.isEmpty();
+    }
+
+    /**
+     * @return true if a size or modification rule has been added
+     */
+    public boolean hasAttributeRules() {
+        return minSize >= 0 || modifiedFrom != Long.MIN_VALUE || modifiedTo != Long.MAX_VALUE;
+    }
+
+    private boolean hasIncludes() {
+        return !includedNames.isEmpty() || !includedNameGlobs.isEmpty() || !includedPathGlobs.isEmpty() || !includedRegexes.isEmpty();
+    }
+
+    private static void addGlob(String glob, Set<String> names, List<PathMatcher> nameGlobs, List<PathMatcher> pathGlobs) {
+        if (glob.contains("/")) {
+            pathGlobs.add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+        } else if (GLOB_CHARACTERS.matcher(glob).find()) {
+            nameGlobs.add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+        } else {
+            names.add(glob);
+        }
+    }
+
+    private static boolean matchesAny(List<PathMatcher> matchers, Path path) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(path)) return true;
+        }
+        return false;
+    }
+
+    private static boolean containsAny(List<Pattern> patterns, String path) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(path).find()) return true;
+        }
+        return false;
+    }
+}
@@ -1,24 +1,43 @@
 package com.wonkglorg.util.files.scanner;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiPredicate;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 @SuppressWarnings("unused")
 public abstract class Scanner<T extends Scanner<T>> {
     protected String rootPath;
     protected int depthLimit;
     protected List<Function<File, Boolean>> fileFilter;
+    protected List<BiPredicate<Path, BasicFileAttributes>> attributeFilter;
     protected ScanType scanType;
     protected List<String> pathsToSearch;
     protected int maxFileCount;
     protected boolean scanAll = false;
+    protected int parallelism = 1;
+    protected ScanRules rules;
 
     protected Scanner() {
         this.depthLimit = 20;
         this.rootPath = "";
         fileFilter = new ArrayList<>();
+        attributeFilter = new ArrayList<>();
+        rules = new ScanRules();
         scanType = ScanType.WIDTH;
         pathsToSearch = new ArrayList<>();
         maxFileCount = -1;
@@ -36,7 +55,8 @@ public abstract class Scanner<T extends Scanner<T>> {
     }
 
     /**
-     * Adds a filter to the scanner
+     * Adds a filter to the scanner, every call to {@link File#isDirectory()}, {@link File#length()} or {@link File#lastModified()} inside of it reads the file again,
+     * prefer {@link #filter(BiPredicate)} when checking any of those
      *
      * @param filter
      * @return
@@ -46,6 +66,105 @@ public abstract class Scanner<T extends Scanner<T>> {
         return (T) this;
     }
 
+    /**
+     * Adds a filter to the scanner that receives the attributes already read while listing the directory, so checking the type, size or modification time of a file costs no extra reads.
+     * Attribute filters run before the {@link File} based filters
+     *
+     * @param filter
+     * @return
+     */
+    public T filter(BiPredicate<Path, BasicFileAttributes> filter) {
+        this.attributeFilter.add(filter);
+        return (T) this;
+    }
+
+    /**
+     * Excludes files and directories matching any of the globs, excluded directories are never listed (see {@link ScanRules} for how globs are matched)
+     *
+     * @param globs the globs to exclude, for example "node_modules", ".git" or "*.tmp"
+     * @return
+     */
+    public T exclude(String... globs) {
+        for (String glob : globs) {
+            rules.exclude(glob);
+        }
+        return (T) this;
+    }
+
+    /**
+     * Excludes files and directories whose path contains a match of any of the regexes, excluded directories are never listed
+     *
+     * @param regexes the regexes to exclude
+     * @return
+     */
+    public T excludeRegex(String... regexes) {
+        for (String regex : regexes) {
+            rules.excludeRegex(regex);
+        }
+        return (T) this;
+    }
+
+    /**
+     * Only returns results matching at least one of the included globs or regexes, does not stop the scanner from descending into directories that do not match
+     *
+     * @param globs the globs to include, for example "*.java"
+     * @return
+     */
+    public T include(String... globs) {
+        for (String glob : globs) {
+            rules.include(glob);
+        }
+        return (T) this;
+    }
+
+    /**
+     * Only returns results whose path contains a match of at least one of the included globs or regexes
+     *
+     * @param regexes the regexes to include
+     * @return
+     */
+    public T includeRegex(String... regexes) {
+        for (String regex : regexes) {
+            rules.includeRegex(regex);
+        }
+        return (T) this;
+    }
+
+    /**
+     * Only returns files (no directories) with a size within the range
+     *
+     * @param minBytes the minimum size (inclusive)
+     * @param maxBytes the maximum size (inclusive)
+     * @return
+     */
+    public T size(long minBytes, long maxBytes) {
+        rules.size(minBytes, maxBytes);
+        return (T) this;
+    }
+
+    /**
+     * Only returns results last modified within the range
+     *
+     * @param from the earliest modification time (inclusive)
+     * @param to   the latest modification time (inclusive)
+     * @return
+     */
+    public T modifiedBetween(Instant from, Instant to) {
+        rules.modified(from.toEpochMilli(), to.toEpochMilli());
+        return (T) this;
+    }
+
+    /**
+     * Only returns results last modified within the given duration before this method was called
+     *
+     * @param duration the maximum age
+     * @return
+     */
+    public T modifiedWithin(Duration duration) {
+        rules.modified(System.currentTimeMillis() - duration.toMillis(), Long.MAX_VALUE);
+        return (T) this;
+    }
+
     /**
      * Scans all drives on pc
      *
@@ -74,94 +193,413 @@ public abstract class Scanner<T extends Scanner<T>> {
     }
 
 
-    protected List<File> createFilePaths() {
-        List<File> roots;
+    /**
+     * Walks sub directories concurrently on up to the given amount of threads, useful for slow (network) drives where most time is spent waiting on directory listings.
+     * Results are no longer returned in width or depth first order when running in parallel (default: 1)
+     *
+     * @param parallelism the maximum amount of directories listed at the same time
+     * @return
+     */
+    public T parallel(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1 but was " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return (T) this;
+    }
+
+    /**
+     * Copies all settings of another scanner
+     *
+     * @param scanner the scanner to copy from
+     */
+    protected void copySettings(Scanner<?> scanner) {
+        this.depthLimit = scanner.depthLimit;
+        this.fileFilter = scanner.fileFilter;
+        this.attributeFilter = scanner.attributeFilter;
+        this.scanType = scanner.scanType;
+        this.pathsToSearch = scanner.pathsToSearch;
+        this.scanAll = scanner.scanAll;
+        this.parallelism = scanner.parallelism;
+        this.rules = scanner.rules;
+    }
+
+    protected List<Path> createRootPaths() {
+        List<Path> roots;
         if (scanAll) {
-            roots = List.of(File.listRoots());
+            roots = Arrays.stream(File.listRoots()).map(File::toPath).toList();
         } else {
-            roots = pathsToSearch.stream().map(File::new).toList();
+            roots = pathsToSearch.stream().map(Path::of).toList();
         }
         return roots;
 
     }
 
 
-    protected void wideFirstSearch(List<File> paths, List<Path> results) {
-        Queue<Map.Entry<Integer, File>> queue = new LinkedList<>();
-        int found = 0;
-        for (File path : paths) {
-            queue.offer(Map.entry(0, path));
+    /**
+     * Runs the configured search passing every match to the consumer until it returns false
+     *
+     * @param paths    the paths to start from
+     * @param consumer receives every match, returns false to stop the search (never called concurrently, even in parallel mode)
+     */
+    protected void search(List<Path> paths, Predicate<ScanEntry> consumer) {
+        if (parallelism > 1) {
+            parallelSearch(paths, consumer);
+            return;
+        }
+
+        switch (scanType) {
+            case WIDTH -> wideFirstSearch(paths, consumer);
+            case DEPTH -> depthFirstSearch(paths, consumer);
+        }
+    }
+
+    protected void wideFirstSearch(List<Path> paths, Predicate<ScanEntry> consumer) {
+        Queue<ScanEntry> queue = new ArrayDeque<>();
+        for (Path path : paths) {
+            ScanEntry root = createRootEntry(path);
+            if (root != null) queue.offer(root);
         }
 
         while (!queue.isEmpty()) {
-            var entry = queue.poll();
-            File currentFile = entry.getValue();
-            int depth = entry.getKey();
-            if (matchesCriteria(currentFile)) {
-                if (found >= maxFileCount && maxFileCount != -1) {
-                    break;
-                }
-                results.add(currentFile.toPath());
-                found++;
+            ScanEntry entry = queue.poll();
+            if (matchesCriteria(entry) && !consumer.test(entry)) {
+                return;
             }
 
-            if (!currentFile.isDirectory()) continue;
+            if (!canDescend(entry)) continue;
+
+            queue.addAll(listDirectory(entry));
+        }
+    }
+
+    protected void depthFirstSearch(List<Path> paths, Predicate<ScanEntry> consumer) {
+        Deque<ScanEntry> stack = new ArrayDeque<>();
+        for (Path path : paths) {
+            ScanEntry root = createRootEntry(path);
+            if (root != null) stack.push(root);
+        }
+
+        while (!stack.isEmpty()) {
+            ScanEntry entry = stack.pop();
+            if (matchesCriteria(entry) && !consumer.test(entry)) {
+                return;
+            }
 
-            if (depthLimit != -1 && depth > depthLimit) continue;
+            if (!canDescend(entry)) continue;
 
-            File[] children = currentFile.listFiles();
+            for (ScanEntry child : listDirectory(entry)) {
+                stack.push(child);
+            }
+        }
+    }
 
-            if (children == null) {
-                continue;
+    /**
+     * Walks all sub directories concurrently on a fork join pool limited to {@link #parallelism} threads, every directory is its own task while
+     * files are checked directly by the task listing them
+     *
+     * @param paths    the paths to start from
+     * @param consumer receives every match, returns false to stop the search
+     */
+    protected void parallelSearch(List<Path> paths, Predicate<ScanEntry> consumer) {
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ParallelScanTask> tasks = new ArrayList<>();
+            for (Path path : paths) {
+                ScanEntry root = createRootEntry(path);
+                if (root != null) tasks.add(new ParallelScanTask(root, consumer, stopped));
             }
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 
-            for (File child : children) {
-                queue.offer(Map.entry(depth + 1, child));
+    /**
+     * Creates an iterator running the configured search lazily, each call to {@link Iterator#hasNext()} scans only as far as needed to find the next match.
+     * In parallel mode the search runs in the background and hands results over through a bounded queue, so it never gets far ahead of the consumer
+     *
+     * @param paths the paths to start from
+     * @return the iterator, has to be closed once no longer needed
+     */
+    protected ScanIterator<ScanEntry> entryIterator(List<Path> paths) {
+        if (parallelism > 1) {
+            return new ParallelScanIterator(paths);
+        }
+        return new SequentialScanIterator(paths);
+    }
+
+    /**
+     * @param path the path to start scanning from
+     * @return the entry for the path or null if it does not exist or cannot be read
+     */
+    protected ScanEntry createRootEntry(Path path) {
+        BasicFileAttributes attributes = readAttributes(path);
+        return attributes == null ? null : new ScanEntry(path, attributes, 0);
+    }
+
+    /**
+     * @param entry the entry to check
+     * @return true if the entry is a directory that is still within the depth limit
+     */
+    protected boolean canDescend(ScanEntry entry) {
+        if (!entry.attributes().isDirectory()) return false;
+        return depthLimit == -1 || entry.depth() <= depthLimit;
+    }
+
+    /**
+     * Lists a directory reading the attributes of every entry exactly once (on file systems that return them while listing no extra read is made at all),
+     * entries that can no longer be read or are excluded by the {@link #rules} are skipped, excluded entries without ever reading their attributes
+     *
+     * @param directory the directory to list
+     * @return the entries of the directory or an empty list if it could not be listed
+     */
+    protected List<ScanEntry> listDirectory(ScanEntry directory) {
+        List<ScanEntry> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.path())) {
+            boolean checkExcludes = rules.hasExcludes();
+            for (Path child : stream) {
+                if (checkExcludes && rules.isExcluded(child)) continue;
+                BasicFileAttributes attributes = readAttributes(child);
+                if (attributes != null) {
+                    children.add(new ScanEntry(child, attributes, directory.depth() + 1));
+                }
             }
+        } catch (IOException | SecurityException e) {
+            //not accessible, skipped like any other unreadable directory
+        }
+        return children;
+    }
+
+    /**
+     * Reads the attributes of a path following symbolic links
+     *
+     * @param path the path to read
+     * @return the attributes or null if they could not be read
+     */
+    protected static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+    }
 
+    protected boolean matchesCriteria(ScanEntry entry) {
+        if (!rules.accepts(entry.path(), entry.attributes())) {
+            return false;
+        }
+        for (var filter : attributeFilter) {
+            if (!filter.test(entry.path(), entry.attributes())) {
+                return false;
+            }
+        }
+        if (fileFilter.isEmpty()) return true;
 
+        File file = entry.path().toFile();
+        for (var filter : fileFilter) {
+            if (!filter.apply(file)) {
+                return false;
+            }
         }
+        return true;
     }
 
-    protected void depthFirstSearch(List<File> paths, List<Path> results) {
-        Stack<Map.Entry<Integer, File>> stack = new Stack<>();
-        int found = 0;
-        for (File path : paths) {
-            stack.push(Map.entry(0, path));
+    /**
+     * Scans a single directory (or file) as part of a {@link #parallelSearch(List, Predicate)}, only ever run in memory so it is never serialized
+     */
+    @SuppressWarnings("serial")
+    private class ParallelScanTask extends RecursiveAction {
+        private final ScanEntry entry;
+        private final Predicate<ScanEntry> consumer;
+        private final AtomicBoolean stopped;
+
+        private ParallelScanTask(ScanEntry entry, Predicate<ScanEntry> consumer, AtomicBoolean stopped) {
+            this.entry = entry;
+            this.consumer = consumer;
+            this.stopped = stopped;
         }
 
-        while (!stack.isEmpty()) {
-            var entry = stack.pop();
-            File currentFile = entry.getValue();
-            int depth = entry.getKey();
-            if (matchesCriteria(currentFile)) {
-                if (found <= maxFileCount || maxFileCount != -1) {
-                    break;
+        @Override
+        protected void compute() {
+            if (!visit(entry)) return;
+
+            if (!canDescend(entry)) return;
+
+            List<ParallelScanTask> subTasks = new ArrayList<>();
+            for (ScanEntry child : listDirectory(entry)) {
+                if (child.attributes().isDirectory()) {
+                    subTasks.add(new ParallelScanTask(child, consumer, stopped));
+                } else if (!visit(child)) {
+                    return;
+                }
+            }
+            invokeAll(subTasks);
+        }
+
+        /**
+         * Passes the entry to the consumer if it matches
+         *
+         * @return false if the search has been stopped
+         */
+        private boolean visit(ScanEntry entry) {
+            if (stopped.get()) return false;
+            if (!matchesCriteria(entry)) return true;
+            synchronized (consumer) {
+                if (stopped.get()) return false;
+                if (!consumer.test(entry)) {
+                    stopped.set(true);
+                    return false;
                 }
-                results.add(currentFile.toPath());
-                found++;
             }
+            return true;
+        }
+    }
 
-            if (!currentFile.isDirectory()) continue;
+    /**
+     * Walks the tree one step at a time on the calling thread, keeping only the directories still left to list in memory
+     */
+    private class SequentialScanIterator implements ScanIterator<ScanEntry> {
+        private final Deque<ScanEntry> pending = new ArrayDeque<>();
+        /** The last returned entry, its children are only listed once the next result is requested */
+        private ScanEntry toExpand;
+        private ScanEntry next;
+        private boolean closed = false;
 
-            if (depthLimit != -1 && depth > depthLimit) continue;
+        private SequentialScanIterator(List<Path> paths) {
+            for (Path path : paths) {
+                ScanEntry root = createRootEntry(path);
+                if (root != null) pending.offer(root);
+            }
+        }
 
-            File[] children = currentFile.listFiles();
+        @Override
+        public boolean hasNext() {
+            if (next != null) return true;
+            if (closed) return false;
 
-            if (children == null) continue;
+            while (true) {
+                if (toExpand != null) {
+                    expand(toExpand);
+                    toExpand = null;
+                }
+                ScanEntry entry = scanType == ScanType.DEPTH ? pending.pollLast() : pending.pollFirst();
+                if (entry == null) return false;
 
-            for (File child : children) {
-                stack.push(Map.entry(depth + 1, child));
+                toExpand = entry;
+                if (matchesCriteria(entry)) {
+                    next = entry;
+                    return true;
+                }
             }
         }
+
+        @Override
+        public ScanEntry next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            ScanEntry entry = next;
+            next = null;
+            return entry;
+        }
+
+        private void expand(ScanEntry entry) {
+            if (!canDescend(entry)) return;
+            pending.addAll(listDirectory(entry));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            next = null;
+            toExpand = null;
+            pending.clear();
+        }
     }
 
-    private boolean matchesCriteria(File file) {
-        for (var filter : fileFilter) {
-            if (!filter.apply(file)) {
+    /**
+     * Runs a {@link #parallelSearch(List, Predicate)} on a background thread handing results over through a bounded queue, the search blocks while the queue is full
+     */
+    private class ParallelScanIterator implements ScanIterator<ScanEntry> {
+        private static final int QUEUE_SIZE = 1024;
+        /** Marks the end of the search */
+        private final ScanEntry end = new ScanEntry(null, null, -1);
+        private final BlockingQueue<ScanEntry> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+        private volatile RuntimeException failure;
+        private ScanEntry next;
+        private boolean finished = false;
+
+        private ParallelScanIterator(List<Path> paths) {
+            Thread producer = new Thread(() -> {
+                try {
+                    parallelSearch(paths, this::handOver);
+                } catch (RuntimeException e) {
+                    failure = e;
+                } finally {
+                    handOver(end);
+                }
+            }, "ParallelScanIterator");
+            producer.setDaemon(true);
+            producer.start();
+        }
+
+        /**
+         * Waits for space in the queue until the iterator is closed
+         *
+         * @return false if the iterator has been closed
+         */
+        private boolean handOver(ScanEntry entry) {
+            try {
+                while (!cancelled.get()) {
+                    if (queue.offer(entry, 50, TimeUnit.MILLISECONDS)) return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) return true;
+            if (finished) return false;
+
+            try {
+                ScanEntry entry = queue.take();
+                if (entry == end) {
+                    finished = true;
+                    if (failure != null) throw failure;
+                    return false;
+                }
+                next = entry;
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
                 return false;
             }
         }
-        return true;
+
+        @Override
+        public ScanEntry next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            ScanEntry entry = next;
+            next = null;
+            return entry;
+        }
+
+        @Override
+        public void close() {
+            cancelled.set(true);
+            finished = true;
+            next = null;
+            queue.clear();
+        }
     }
 }
@@ -0,0 +1,142 @@
+package com.wonkglorg.util.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily reads the elements of a top level JSON array one at a time, only the current element is bound to an object so the array can be larger than the heap.
+ * An element that cannot be bound is skipped after its exception is thrown, so reading can go on with the next element.
+ *
+ * @param <T> the type of the elements
+ */
+public class JsonArrayReader<T> implements Iterator<T>, Closeable {
+    private final JsonParser parser;
+    private final ObjectReader reader;
+    /**
+     * The context of the array itself, the parser is back in it once an element has been read to its end
+     */
+    private JsonStreamContext arrayContext;
+    /**
+     * True if the parser is on the first token of the next element
+     */
+    private boolean hasNext;
+    private long count = 0;
+
+    /**
+     * @param parser a parser that has not read any token yet, closed when this reader is closed
+     * @param reader the reader binding each element
+     * @throws IOException if the document does not start with an array
+     */
+    JsonArrayReader(JsonParser parser, ObjectReader reader) throws IOException {
+        this.parser = parser;
+        this.reader = reader;
+        try {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array but found " + parser.currentToken());
+            }
+            arrayContext = parser.getParsingContext();
+            advance();
+        } catch (IOException e) {
+            parser.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    /**
+     * @return the next element
+     * @throws UncheckedIOException if the element could not be read or bound, the element is skipped unless the document itself is malformed which ends
+     *                              the reader
+     */
+    @Override
+    public T next() {
+        if (!hasNext) throw new NoSuchElementException();
+        try {
+            T value = reader.readValue(parser);
+            count++;
+            advance();
+            return value;
+        } catch (IOException e) {
+            UncheckedIOException failure = new UncheckedIOException("Error reading element " + count + ": " + e.getMessage(), e);
+            count++;
+            skipElement(failure);
+            throw failure;
+        }
+    }
+
+    /**
+     * @return the amount of elements read or skipped so far
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return a sequential stream of the remaining elements which closes this reader when it is closed
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        hasNext = false;
+        parser.close();
+    }
+
+    /**
+     * Moves past the rest of an element that failed to bind, ending the reader if the document cannot be read any further
+     *
+     * @param failure the exception of the element, anything going wrong while skipping is added to it
+     */
+    private void skipElement(UncheckedIOException failure) {
+        try {
+            //a failed element can leave the parser anywhere inside of it
+            while (parser.getParsingContext() != arrayContext) {
+                if (parser.nextToken() == null) {
+                    throw new IOException("Unexpected end of input, the array is not closed");
+                }
+            }
+            advance();
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+            hasNext = false;
+            try {
+                parser.close();
+            } catch (IOException closeException) {
+                failure.addSuppressed(closeException);
+            }
+        }
+    }
+
+    private void advance() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            throw new IOException("Unexpected end of input, the array is not closed");
+        }
+        hasNext = token != JsonToken.END_ARRAY;
+        if (!hasNext) parser.close();
+    }
+}
@@ -0,0 +1,100 @@
+package com.wonkglorg.util.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+/**
+ * Writes objects one at a time as the elements of a top level JSON array, nothing but the generator's buffer is kept in memory.
+ *
+ * @param <T> the type of the elements
+ */
+public class JsonArrayWriter<T> implements Closeable, Flushable {
+    private final JsonGenerator generator;
+    private final ObjectWriter writer;
+    private long count = 0;
+
+    /**
+     * @param generator a generator that has not written anything yet, closed when this writer is closed
+     * @param writer    the writer serializing each element, should not flush after every value
+     * @throws IOException if the array could not be started
+     */
+    JsonArrayWriter(JsonGenerator generator, ObjectWriter writer) throws IOException {
+        this.generator = generator;
+        this.writer = writer;
+        generator.writeStartArray();
+    }
+
+    /**
+     * Writes an element
+     *
+     * @param value the element, null is written as JSON null
+     * @return the JsonArrayWriter instance
+     * @throws UncheckedIOException if the element could not be written
+     */
+    public JsonArrayWriter<T> write(T value) {
+        try {
+            writer.writeValue(generator, value);
+            count++;
+            return this;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing element " + count + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes every remaining element of the iterator
+     *
+     * @param values the elements
+     * @return the JsonArrayWriter instance
+     * @throws UncheckedIOException if an element could not be written
+     */
+    public JsonArrayWriter<T> writeAll(Iterator<? extends T> values) {
+        while (values.hasNext()) {
+            write(values.next());
+        }
+        return this;
+    }
+
+    /**
+     * @return the amount of elements written so far
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    /**
+     * Closes the file without ending the array, so a file whose elements could not all be written is never read as a complete array
+     *
+     * @throws IOException if the buffered output could not be written
+     */
+    public void abort() throws IOException {
+        if (generator.isClosed()) return;
+        //the generator would otherwise end every open array and object while closing
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        generator.close();
+    }
+
+    /**
+     * Ends the array and closes the file
+     */
+    @Override
+    public void close() throws IOException {
+        if (generator.isClosed()) return;
+        try {
+            generator.writeEndArray();
+        } finally {
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.wonkglorg.util.json;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Reads and writes a single type with a reader and writer prebuilt for it, the serializer and deserializer are looked up once instead of on every call. Get
+ * one from {@link JsonUtil#codec(Class)} and keep it, it is immutable and can be shared between threads.
+ * <p>
+ * Values are written as the type of the codec, properties only present on subclasses are not written. A codec keeps the configuration it was created with,
+ * get it again after {@link JsonUtil#configure(java.util.function.Consumer)}.
+ *
+ * @param <T> the type read and written
+ */
+public class JsonCodec<T> {
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    JsonCodec(ObjectReader reader, ObjectWriter writer) {
+        this.reader = reader;
+        this.writer = writer;
+    }
+
+    /**
+     * @param json the json to read
+     * @return the value
+     * @throws UncheckedIOException if the json is invalid or does not match the type
+     */
+    public T fromString(String json) {
+        try {
+            return reader.readValue(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading json: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param json the json to read, in UTF-8, UTF-16 or UTF-32
+     * @return the value
+     * @throws UncheckedIOException if the json is invalid or does not match the type
+     */
+    public T fromBytes(byte[] json) {
+        try {
+            return reader.readValue(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading json: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param input the stream to read, it is not closed
+     * @return the value
+     * @throws UncheckedIOException if the stream could not be read or the json does not match the type
+     */
+    public T fromStream(InputStream input) {
+        try {
+            return reader.readValue(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading json: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param file the file to read
+     * @return the value
+     * @throws UncheckedIOException if the file could not be read or the json does not match the type
+     */
+    public T fromFile(File file) {
+        try {
+            return reader.readValue(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param value the value to write
+     * @return the json string
+     * @throws UncheckedIOException if the value could not be serialized
+     */
+    public String toJsonString(T value) {
+        try {
+            return writer.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing json: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param value the value to write
+     * @return the json in UTF-8
+     * @throws UncheckedIOException if the value could not be serialized
+     */
+    public byte[] toBytes(T value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing json: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param file  the file to write, an existing file is overwritten
+     * @param value the value to write
+     * @throws UncheckedIOException if the file could not be written or the value could not be serialized
+     */
+    public void toFile(File file, T value) {
+        try {
+            writer.writeValue(file, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing object to file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the reader bound to the type
+     */
+    public ObjectReader getReader() {
+        return reader;
+    }
+
+    /**
+     * @return the writer bound to the type
+     */
+    public ObjectWriter getWriter() {
+        return writer;
+    }
+}
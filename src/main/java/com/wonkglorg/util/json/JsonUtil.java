@@ -1,18 +1,67 @@
 package com.wonkglorg.util.json;
 
+import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+/**
+ * Reads and writes json with a shared {@link ObjectMapper}. All methods can be called concurrently, only {@link #configure(Consumer)} and the registerModule
+ * methods take a lock, they publish a reconfigured copy of the mapper instead of changing the one in use.
+ * <p>
+ * Callers reading or writing the same type often can get a {@link JsonCodec} from {@link #codec(Class)}, codecs are cached per requested type and
+ * configuration. The other methods leave caching to the mapper, so classes that are only passed through them are never held on to.
+ */
 @SuppressWarnings("unused")
 public class JsonUtil {
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Object configLock = new Object();
+    /**
+     * The current configuration, never changed after it is published so reading and writing needs no lock
+     */
+    private static volatile Config config = new Config(new ObjectMapper());
+
+    /**
+     * A configured mapper and the readers and writers prebuilt from it
+     *
+     * @param mapper      the mapper, not modified after it is published
+     * @param reader      the reader all typed readers are derived from
+     * @param writer      the writer for whole documents
+     * @param arrayWriter the writer for array elements, it does not flush after every value
+     * @param codecs      the codecs created with this configuration by class or generic type
+     */
+    private record Config(ObjectMapper mapper, ObjectReader reader, ObjectWriter writer, ObjectWriter arrayWriter, Map<Type, JsonCodec<?>> codecs) {
+        Config(ObjectMapper mapper) {
+            this(mapper, mapper.reader(), mapper.writer(), mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE), new ConcurrentHashMap<>());
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> JsonCodec<T> codec(Type type) {
+            JsonCodec<?> codec = codecs.get(type);
+            if (codec == null) {
+                JavaType javaType = mapper.constructType(type);
+                codec = codecs.computeIfAbsent(type, key -> new JsonCodec<>(reader.forType(javaType), writer.forType(javaType)));
+            }
+            return (JsonCodec<T>) codec;
+        }
+    }
 
     /**
      * Reads a jspn file and populates the class with data the class should be annotated like {@link ExampleJsonData}
@@ -22,12 +71,12 @@ public class JsonUtil {
      * @param <T>   the class type
      * @return the populated class
      */
-    public static synchronized <T> T fromFile(String path, Class<T> clazz) {
+    public static <T> T fromFile(String path, Class<T> clazz) {
 
         File file = new File(path);
         if (file.exists()) {
             try {
-                return objectMapper.readValue(file, clazz);
+                return config.reader().forType(clazz).readValue(file);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
@@ -45,13 +94,13 @@ public class JsonUtil {
      * @param overwrite true to overwrite the file if it exists
      * @return true if the file was written successfully, false if the file already exists and overwrite is false
      */
-    public static synchronized boolean toFile(String path, Object object, boolean overwrite) {
+    public static boolean toFile(String path, Object object, boolean overwrite) {
         try {
             File file = checkFile(path, overwrite);
             if (file == null) {
                 return false;
             }
-            objectMapper.writeValue(file, object);
+            config.writer().writeValue(file, object);
             return true;
         } catch (IOException e) {
             throw new RuntimeException("Error writing object to file: " + e.getMessage(), e);
@@ -67,20 +116,147 @@ public class JsonUtil {
      * @param overwrite  true to overwrite the file if it exists
      * @return true if the file was written successfully, false if the file already exists and overwrite is false
      */
-    public static synchronized boolean toFile(String path, String jsonString, boolean overwrite) {
+    public static boolean toFile(String path, String jsonString, boolean overwrite) {
         try {
             File file = checkFile(path, overwrite);
             if (file == null) {
                 return false;
             }
 
-            objectMapper.writeValue(file, jsonString);
+            config.writer().writeValue(file, jsonString);
             return true;
         } catch (IOException e) {
             throw new RuntimeException("Error writing JSON string to file: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Opens a json file whose root is an array and reads its elements one at a time, the reader has to be closed if it is not read to the end
+     *
+     * @param path  the path to the file
+     * @param clazz the class of the elements
+     * @param <T>   the element type
+     * @return the reader or null if the file does not exist
+     */
+    public static <T> JsonArrayReader<T> readArray(String path, Class<T> clazz) {
+        return openArray(path, config.reader().forType(clazz));
+    }
+
+    /**
+     * Opens a json file whose root is an array and reads its elements one at a time, the reader has to be closed if it is not read to the end
+     *
+     * @param path the path to the file
+     * @param type the type of the elements, for generic types like {@code new TypeReference<Map<String, Integer>>() {}}
+     * @param <T>  the element type
+     * @return the reader or null if the file does not exist
+     */
+    public static <T> JsonArrayReader<T> readArray(String path, TypeReference<T> type) {
+        return openArray(path, config.reader().forType(type));
+    }
+
+    /**
+     * Streams the elements of a json file whose root is an array, the stream should be closed to release the file
+     *
+     * @param path  the path to the file
+     * @param clazz the class of the elements
+     * @param <T>   the element type
+     * @return the elements or an empty stream if the file does not exist
+     */
+    public static <T> Stream<T> streamArray(String path, Class<T> clazz) {
+        JsonArrayReader<T> reader = readArray(path, clazz);
+        return reader == null ? Stream.empty() : reader.stream();
+    }
+
+    /**
+     * Opens a json file to write an array one element at a time, closing the writer ends the array while {@link JsonArrayWriter#abort()} leaves it open
+     *
+     * @param path      the path to the file
+     * @param overwrite true to overwrite the file if it exists
+     * @param <T>       the element type
+     * @return the writer or null if the file already exists and overwrite is false
+     */
+    public static <T> JsonArrayWriter<T> writeArray(String path, boolean overwrite) {
+        try {
+            File file = checkFile(path, overwrite);
+            if (file == null) {
+                return null;
+            }
+            Config current = config;
+            return new JsonArrayWriter<>(current.mapper().createGenerator(file, JsonEncoding.UTF8), current.arrayWriter());
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing object to file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the elements to a json file as an array without collecting them first, if an element fails the array is left open so the file is not
+     * mistaken for the complete array
+     *
+     * @param path      the path to the file
+     * @param values    the elements to write
+     * @param overwrite true to overwrite the file if it exists
+     * @return true if the file was written successfully, false if the file already exists and overwrite is false
+     */
+    public static boolean arrayToFile(String path, Iterator<?> values, boolean overwrite) {
+        JsonArrayWriter<Object> writer = writeArray(path, overwrite);
+        if (writer == null) {
+            return false;
+        }
+        try {
+            writer.writeAll(values);
+        } catch (RuntimeException | Error e) {
+            try {
+                writer.abort();
+            } catch (IOException abortException) {
+                e.addSuppressed(abortException);
+            }
+            if (e instanceof UncheckedIOException) {
+                throw new RuntimeException("Error writing object to file: " + e.getMessage(), e);
+            }
+            throw e;
+        }
+        try {
+            writer.close();
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing object to file: " + e.getMessage(), e);
+        }
+    }
+
+    private static <T> JsonArrayReader<T> openArray(String path, ObjectReader reader) {
+        File file = new File(path);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            return new JsonArrayReader<>(config.mapper().createParser(file), reader);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the codec for a class, created once per class and configuration
+     *
+     * @param clazz the class to read and write
+     * @param <T>   the class type
+     * @return the codec, keep it to skip the lookup
+     */
+    public static <T> JsonCodec<T> codec(Class<T> clazz) {
+        return config.codec(clazz);
+    }
+
+    /**
+     * Returns the codec for a generic type, created once per type and configuration
+     *
+     * @param type the type to read and write, for generic types like {@code new TypeReference<List<String>>() {}}
+     * @param <T>  the type
+     * @return the codec, keep it to skip the lookup
+     */
+    public static <T> JsonCodec<T> codec(TypeReference<T> type) {
+        return config.codec(type.getType());
+    }
+
     /**
      * Checks if the file exists and creates it if it does not
      *
@@ -89,7 +265,7 @@ public class JsonUtil {
      * @return the file
      * @throws IOException
      */
-    private static synchronized File checkFile(String path, boolean overwrite) throws IOException {
+    private static File checkFile(String path, boolean overwrite) throws IOException {
         File file = new File(path);
         if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
             throw new IOException("Unable to create directories for file: " + file.getParentFile());
@@ -110,21 +286,35 @@ public class JsonUtil {
      * @param object the object to convert
      * @return the JSON string
      */
-    public static synchronized String toJsonString(Object object) {
+    public static String toJsonString(Object object) {
         try {
-            return objectMapper.writeValueAsString(object);
+            return config.writer().writeValueAsString(object);
         } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Changes the configuration of the object mapper. The change is made on a copy of the current mapper which then replaces it, calls already running keep
+     * using the previous configuration.
+     *
+     * @param configurer the change to make, for example {@code mapper -> mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)}
+     */
+    public static void configure(Consumer<ObjectMapper> configurer) {
+        synchronized (configLock) {
+            ObjectMapper mapper = config.mapper().copy();
+            configurer.accept(mapper);
+            config = new Config(mapper);
+        }
+    }
+
     /**
      * Registers a module to the object mapper
      *
      * @param module the module to register
      */
-    public static synchronized void registerModule(SimpleModule module) {
-        objectMapper.registerModule(module);
+    public static void registerModule(SimpleModule module) {
+        configure(mapper -> mapper.registerModule(module));
     }
 
     /**
@@ -132,8 +322,8 @@ public class JsonUtil {
      *
      * @param module the module to register
      */
-    public static synchronized void registerModule(com.fasterxml.jackson.databind.Module module) {
-        objectMapper.registerModule(module);
+    public static void registerModule(com.fasterxml.jackson.databind.Module module) {
+        configure(mapper -> mapper.registerModule(module));
     }
 
     /**
@@ -144,14 +334,22 @@ public class JsonUtil {
      * @param clazz
      * @param <T>
      */
-    public static synchronized <T> void registerModule(JsonSerializer<T> serializer, JsonDeserializer<T> deserializer, Class<T> clazz) {
+    public static <T> void registerModule(JsonSerializer<T> serializer, JsonDeserializer<T> deserializer, Class<T> clazz) {
         SimpleModule module = new SimpleModule();
         module.addSerializer(clazz, serializer);
         module.addDeserializer(clazz, deserializer);
-        objectMapper.registerModule(module);
+        registerModule(module);
     }
 
-    public static synchronized ObjectMapper getObjectMapper() {
-        return objectMapper;
+    /**
+     * Returns a copy of the current object mapper, changes made to it do not affect this class
+     *
+     * @return a copy of the current object mapper
+     * @deprecated the shared mapper is no longer handed out since readers and writers are prebuilt from it, use {@link #configure(Consumer)} to change its
+     * configuration
+     */
+    @Deprecated
+    public static ObjectMapper getObjectMapper() {
+        return config.mapper().copy();
     }
 }
@@ -0,0 +1,507 @@
+package com.wonkglorg.util.parser;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Low level CSV cursor moving over the rows of the input without creating any objects per row or field.
+ * <p>
+ * Every field of the current row is a range ({@link #fieldStart(int)} to {@link #fieldEnd(int)}) of the reused {@link #buffer()}, which can be read through
+ * the reusable {@link CharSequence} views of {@link #field(int)} or parsed directly with {@link #parseInt(int)}, {@link #parseLong(int)} and
+ * {@link #parseDouble(int)}. Views and offsets are only valid until the next call to {@link #next()}, call {@link #getString(int)} to keep a field.
+ * <p>
+ * Parses RFC 4180 like {@link CsvReader}: quoted fields may contain separators, line breaks and doubled quotes, records end at "\n", "\r\n" or "\r" and
+ * empty lines are skipped.
+ */
+public class CsvCursor implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private final Reader reader;
+    private final char separator;
+    private final char quote;
+    private char[] buffer;
+    private int position = 0;
+    private int limit = 0;
+    private boolean endOfInput = false;
+    /**
+     * Set after a record ended with '\r' so a directly following '\n' is skipped
+     */
+    private boolean skipLineFeed = false;
+
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount = 0;
+    private long rowNumber = 0;
+    private FieldView[] views = new FieldView[0];
+
+    /**
+     * Reads comma separated values quoted with '"'
+     *
+     * @param reader the reader to read from
+     */
+    public CsvCursor(@NotNull Reader reader) {
+        this(reader, ',', '"');
+    }
+
+    /**
+     * @param reader    the reader to read from
+     * @param separator the character separating fields
+     * @param quote     the character quoting fields
+     */
+    public CsvCursor(@NotNull Reader reader, char separator, char quote) {
+        if (separator == quote || separator == '\n' || separator == '\r' || quote == '\n' || quote == '\r') {
+            throw new IllegalArgumentException("Separator and quote have to be distinct and not line breaks");
+        }
+        this.reader = reader;
+        this.separator = separator;
+        this.quote = quote;
+        this.buffer = new char[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Opens a file to read through a {@link FileChannel}
+     *
+     * @param file      the file to read
+     * @param charset   the charset of the file
+     * @param separator the character separating fields
+     * @return the cursor, has to be closed
+     * @throws IOException if the file could not be opened
+     */
+    public static CsvCursor open(@NotNull Path file, @NotNull Charset charset, char separator) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        Reader reader = Channels.newReader(channel, charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE), -1);
+        return new CsvCursor(reader, separator, '"');
+    }
+
+    /**
+     * Moves to the next row
+     *
+     * @return false if there are no more rows
+     * @throws UncheckedIOException if the input could not be read
+     */
+    public boolean next() {
+        return parseRow();
+    }
+
+    /**
+     * @return the amount of fields in the current row
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @return the buffer holding the fields of the current row, only valid until the next call to {@link #next()}
+     */
+    public char[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * @param index the index of the field
+     * @return the offset of the first char of the field in the {@link #buffer()}
+     */
+    public int fieldStart(int index) {
+        checkIndex(index);
+        return fieldStarts[index];
+    }
+
+    /**
+     * @param index the index of the field
+     * @return the offset after the last char of the field in the {@link #buffer()}
+     */
+    public int fieldEnd(int index) {
+        checkIndex(index);
+        return fieldEnds[index];
+    }
+
+    /**
+     * @param index the index of the field
+     * @return the length of the field
+     */
+    public int fieldLength(int index) {
+        checkIndex(index);
+        return fieldEnds[index] - fieldStarts[index];
+    }
+
+    /**
+     * Gets a reusable view of a field, there is one view per field index which is pointed at the same field of the next row
+     *
+     * @param index the index of the field
+     * @return the view, only valid until the next call to {@link #next()}
+     */
+    public CharSequence field(int index) {
+        checkIndex(index);
+        if (index >= views.length) {
+            int oldLength = views.length;
+            views = Arrays.copyOf(views, Math.max(index + 1, oldLength * 2));
+            for (int i = oldLength; i < views.length; i++) {
+                views[i] = new FieldView(i);
+            }
+        }
+        return views[index];
+    }
+
+    /**
+     * @param index the index of the field
+     * @return a copy of the field
+     */
+    public String getString(int index) {
+        checkIndex(index);
+        return new String(buffer, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+    }
+
+    /**
+     * Parses a field as an int without creating a {@link String}
+     *
+     * @param index the index of the field
+     * @return the value
+     * @throws NumberFormatException if the field is not a valid int
+     */
+    public int parseInt(int index) {
+        long value = parseLong(index);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of int range: \"" + getString(index) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a field as a long without creating a {@link String}, an optional sign followed by digits
+     *
+     * @param index the index of the field
+     * @return the value
+     * @throws NumberFormatException if the field is not a valid long
+     */
+    public long parseLong(int index) {
+        checkIndex(index);
+        int i = fieldStarts[index];
+        int end = fieldEnds[index];
+        if (i == end) {
+            throw new NumberFormatException("Empty field " + index);
+        }
+
+        boolean negative = false;
+        char first = buffer[i];
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == end) throw invalidNumber(index);
+        }
+
+        //accumulates negatively so Long.MIN_VALUE fits
+        long limitValue = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limitValue / 10;
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9 || result < multiplyLimit) throw invalidNumber(index);
+            result *= 10;
+            if (result < limitValue + digit) throw invalidNumber(index);
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses a field as a double, plain decimals with up to 15 significant digits and small exponents are computed directly from the chars without creating a
+     * {@link String}, anything else falls back to {@link Double#parseDouble(String)}
+     *
+     * @param index the index of the field
+     * @return the value
+     * @throws NumberFormatException if the field is not a valid double
+     */
+    public double parseDouble(int index) {
+        checkIndex(index);
+        int i = fieldStarts[index];
+        int end = fieldEnds[index];
+
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        for (; i < end && buffer[i] >= '0' && buffer[i] <= '9'; i++) {
+            anyDigit = true;
+            if (mantissa == 0 && buffer[i] == '0') continue;
+            mantissa = mantissa * 10 + (buffer[i] - '0');
+            if (++digits > 15) return parseDoubleSlow(index);
+        }
+        if (i < end && buffer[i] == '.') {
+            for (i++; i < end && buffer[i] >= '0' && buffer[i] <= '9'; i++) {
+                anyDigit = true;
+                exponent--;
+                if (mantissa == 0 && buffer[i] == '0') continue;
+                mantissa = mantissa * 10 + (buffer[i] - '0');
+                if (++digits > 15) return parseDoubleSlow(index);
+            }
+        }
+        if (!anyDigit) return parseDoubleSlow(index);
+
+        if (i < end && (buffer[i] == 'e' || buffer[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+                negativeExponent = buffer[i] == '-';
+                i++;
+            }
+            if (i == end) return parseDoubleSlow(index);
+            int explicitExponent = 0;
+            for (; i < end && buffer[i] >= '0' && buffer[i] <= '9'; i++) {
+                explicitExponent = explicitExponent * 10 + (buffer[i] - '0');
+                if (explicitExponent > 400) return parseDoubleSlow(index);
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (i != end) return parseDoubleSlow(index);
+
+        if (!ExactDecimal.isExact(mantissa, exponent)) return parseDoubleSlow(index);
+        double value = ExactDecimal.toDouble(mantissa, exponent);
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return the amount of rows read so far, not counting skipped empty lines
+     */
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private double parseDoubleSlow(int index) {
+        return Double.parseDouble(getString(index));
+    }
+
+    private NumberFormatException invalidNumber(int index) {
+        return new NumberFormatException("For input string: \"" + getString(index) + "\"");
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " out of bounds for row with " + fieldCount + " fields");
+        }
+    }
+
+    /**
+     * Parses the next record into {@link #fieldStarts} and {@link #fieldEnds}, the contents of quoted fields are unescaped in place in the buffer
+     *
+     * @return false if there are no more records
+     */
+    private boolean parseRow() {
+        while (true) {
+            if (position >= limit && !fill(position)) return false;
+            char c = buffer[position];
+            if (skipLineFeed && c == '\n') {
+                position++;
+                skipLineFeed = false;
+                continue;
+            }
+            skipLineFeed = false;
+            if (c != '\n' && c != '\r') break;
+            //empty line
+            position++;
+            skipLineFeed = c == '\r';
+        }
+
+        fieldCount = 0;
+        int rowStart = position;
+        int state = FIELD_START;
+        int fieldStart = position;
+        //where the next char of the current field is written, only behind the read position for quoted fields with escaped quotes
+        int write = position;
+        int i = position;
+
+        while (true) {
+            if (i >= limit) {
+                int shift = rowStart;
+                boolean more = fill(rowStart);
+                rowStart -= shift;
+                fieldStart -= shift;
+                write -= shift;
+                i -= shift;
+                if (!more) {
+                    //end of input, finish the last record
+                    addField(fieldStart, write);
+                    position = limit;
+                    rowNumber++;
+                    return true;
+                }
+            }
+
+            char c = buffer[i++];
+            switch (state) {
+                case FIELD_START -> {
+                    if (c == quote) {
+                        state = QUOTED;
+                        fieldStart = i;
+                        write = i;
+                    } else if (c == separator) {
+                        addField(fieldStart, write);
+                        fieldStart = i;
+                        write = i;
+                    } else if (c == '\n' || c == '\r') {
+                        return endRow(fieldStart, write, i, c);
+                    } else {
+                        state = UNQUOTED;
+                        buffer[write++] = c;
+                    }
+                }
+                case UNQUOTED -> {
+                    if (c == separator) {
+                        addField(fieldStart, write);
+                        state = FIELD_START;
+                        fieldStart = i;
+                        write = i;
+                    } else if (c == '\n' || c == '\r') {
+                        return endRow(fieldStart, write, i, c);
+                    } else {
+                        buffer[write++] = c;
+                    }
+                }
+                case QUOTED -> {
+                    if (c == quote) {
+                        state = QUOTE_IN_QUOTED;
+                    } else {
+                        buffer[write++] = c;
+                    }
+                }
+                default -> {
+                    if (c == quote) {
+                        //escaped quote
+                        buffer[write++] = c;
+                        state = QUOTED;
+                    } else if (c == separator) {
+                        addField(fieldStart, write);
+                        state = FIELD_START;
+                        fieldStart = i;
+                        write = i;
+                    } else if (c == '\n' || c == '\r') {
+                        return endRow(fieldStart, write, i, c);
+                    } else {
+                        buffer[write++] = c;
+                        state = UNQUOTED;
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean endRow(int fieldStart, int fieldEnd, int next, char lineBreak) {
+        addField(fieldStart, fieldEnd);
+        position = next;
+        skipLineFeed = lineBreak == '\r';
+        rowNumber++;
+        return true;
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    /**
+     * Reads more input, moving everything from keepFrom on to the start of the buffer first (and growing it if a single record fills all of it).
+     * Field offsets recorded so far are moved along
+     *
+     * @param keepFrom the first char still needed
+     * @return false if there is no more input
+     */
+    private boolean fill(int keepFrom) {
+        int kept = limit - keepFrom;
+        if (keepFrom > 0) {
+            System.arraycopy(buffer, keepFrom, buffer, 0, kept);
+            for (int i = 0; i < fieldCount; i++) {
+                fieldStarts[i] -= keepFrom;
+                fieldEnds[i] -= keepFrom;
+            }
+        } else if (kept == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        position -= Math.min(position, keepFrom);
+        limit = kept;
+        if (endOfInput) return false;
+
+        try {
+            int read;
+            do {
+                read = reader.read(buffer, limit, buffer.length - limit);
+            } while (read == 0);
+            if (read < 0) {
+                endOfInput = true;
+                return false;
+            }
+            limit += read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A reusable view of the field at a fixed index of the current row
+     */
+    private final class FieldView implements CharSequence {
+        private final int index;
+
+        private FieldView(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int length() {
+            return fieldLength(index);
+        }
+
+        @Override
+        public char charAt(int position) {
+            if (position < 0 || position >= length()) {
+                throw new IndexOutOfBoundsException(position);
+            }
+            return buffer[fieldStarts[index] + position];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length() || start > end) {
+                throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length());
+            }
+            return new String(buffer, fieldStarts[index] + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return getString(index);
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.wonkglorg.util.parser;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Maps the rows of a CSV file onto records or classes, columns are bound to record components or fields by their header name.
+ * <p>
+ * Everything needed to map a row is resolved once per file in {@link #bind(String[])}: the column index, converter and {@link MethodHandle} of every property.
+ * Mapping a row then only converts the fields of the {@link CsvCursor} and invokes the handles, int, long, double and boolean fields of classes are set without
+ * boxing. Header names are matched ignoring case and any non letter or digit characters ("first_name" matches firstName), columns without a matching property are
+ * ignored and properties without a column keep their default value.
+ *
+ * @param <T> the type rows are mapped to
+ */
+public class CsvMapper<T> {
+    private static final Map<Class<?>, Function<CharSequence, ?>> DEFAULT_CONVERTERS = new HashMap<>();
+
+    static {
+        DEFAULT_CONVERTERS.put(String.class, CharSequence::toString);
+        DEFAULT_CONVERTERS.put(CharSequence.class, CharSequence::toString);
+        DEFAULT_CONVERTERS.put(Character.class, value -> value.charAt(0));
+        DEFAULT_CONVERTERS.put(Byte.class, value -> Byte.parseByte(value.toString()));
+        DEFAULT_CONVERTERS.put(Short.class, value -> Short.parseShort(value.toString()));
+        DEFAULT_CONVERTERS.put(Float.class, value -> Float.parseFloat(value.toString()));
+        DEFAULT_CONVERTERS.put(BigDecimal.class, value -> new BigDecimal(value.toString()));
+        DEFAULT_CONVERTERS.put(BigInteger.class, value -> new BigInteger(value.toString()));
+        DEFAULT_CONVERTERS.put(LocalDate.class, LocalDate::parse);
+        DEFAULT_CONVERTERS.put(LocalDateTime.class, LocalDateTime::parse);
+        DEFAULT_CONVERTERS.put(Instant.class, Instant::parse);
+    }
+
+    private final Class<T> type;
+    private final List<Property> properties;
+    private final MethodHandle constructor;
+    private final boolean isRecord;
+    private final Map<Class<?>, Function<CharSequence, ?>> converters = new HashMap<>();
+    private final Map<String, String> columnNames = new HashMap<>();
+
+    private CsvMapper(Class<T> type, List<Property> properties, MethodHandle constructor, boolean isRecord) {
+        this.type = type;
+        this.properties = properties;
+        this.constructor = constructor;
+        this.isRecord = isRecord;
+    }
+
+    /**
+     * Creates a mapper for a record or a class, records are created through their canonical constructor, classes through their no argument constructor with
+     * every non static, non final field set afterwards
+     *
+     * @param type the type to map rows to
+     * @param <T>  the type
+     * @return the mapper
+     * @throws IllegalArgumentException if the type cannot be created
+     */
+    public static <T> CsvMapper<T> of(@NotNull Class<T> type) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            List<Property> properties = new ArrayList<>();
+            if (type.isRecord()) {
+                RecordComponent[] components = type.getRecordComponents();
+                Class<?>[] parameterTypes = new Class<?>[components.length];
+                for (int i = 0; i < components.length; i++) {
+                    parameterTypes[i] = components[i].getType();
+                    properties.add(new Property(components[i].getName(), components[i].getType(), null));
+                }
+                Constructor<T> canonical = type.getDeclaredConstructor(parameterTypes);
+                MethodHandle constructor = lookup.unreflectConstructor(canonical)
+                        .asType(MethodType.methodType(Object.class, parameterTypes))
+                        .asSpreader(Object[].class, components.length);
+                return new CsvMapper<>(type, properties, constructor, true);
+            }
+
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || field.isSynthetic()) continue;
+                    MethodHandle setter = MethodHandles.privateLookupIn(current, MethodHandles.lookup()).unreflectSetter(field);
+                    properties.add(new Property(field.getName(), field.getType(), setter));
+                }
+            }
+            MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class)).asType(MethodType.methodType(Object.class));
+            return new CsvMapper<>(type, properties, constructor, false);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot map CSV rows to " + type.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Registers a converter for all properties of a type, replacing the built-in one
+     *
+     * @param type      the property type
+     * @param converter converts a non empty field to the type, the field passed is only valid during the call
+     * @param <V>       the property type
+     * @return the CsvMapper instance
+     */
+    public <V> CsvMapper<T> converter(@NotNull Class<V> type, @NotNull Function<CharSequence, V> converter) {
+        converters.put(wrap(type), converter);
+        return this;
+    }
+
+    /**
+     * Binds a property to a column with a different name
+     *
+     * @param property the name of the record component or field
+     * @param header   the header of the column
+     * @return the CsvMapper instance
+     */
+    public CsvMapper<T> column(@NotNull String property, @NotNull String header) {
+        columnNames.put(property, normalize(header));
+        return this;
+    }
+
+    /**
+     * Resolves the column, converter and handle of every property for a header row
+     *
+     * @param header the header row of the file
+     * @return the binding mapping rows of that file
+     */
+    public Binding<T> bind(@NotNull String[] header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = header.length - 1; i >= 0; i--) {
+            columns.put(normalize(header[i]), i);
+        }
+
+        ColumnBinder[] binders = new ColumnBinder[properties.size()];
+        for (int i = 0; i < binders.length; i++) {
+            Property property = properties.get(i);
+            String name = columnNames.getOrDefault(property.name(), normalize(property.name()));
+            Integer column = columns.get(name);
+            binders[i] = column == null ? null : binder(property, i, column);
+        }
+        return new Binding<>(type, isRecord, constructor, properties, binders);
+    }
+
+    /**
+     * Reads the first row of the cursor as the header and maps every following row
+     *
+     * @param cursor the cursor to read from
+     * @param action the action to run for every mapped row
+     */
+    public void forEach(@NotNull CsvCursor cursor, @NotNull Consumer<T> action) {
+        if (!cursor.next()) return;
+        String[] header = new String[cursor.fieldCount()];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = cursor.getString(i);
+        }
+        Binding<T> binding = bind(header);
+        while (cursor.next()) {
+            action.accept(binding.map(cursor));
+        }
+    }
+
+    /**
+     * Reads a CSV file with a header row and maps every following row
+     *
+     * @param file      the file to read
+     * @param charset   the charset of the file
+     * @param separator the character separating fields
+     * @return the mapped rows
+     * @throws IOException if the file could not be read
+     */
+    public List<T> readAll(@NotNull Path file, @NotNull Charset charset, char separator) throws IOException {
+        List<T> rows = new ArrayList<>();
+        try (CsvCursor cursor = CsvCursor.open(file, charset, separator)) {
+            forEach(cursor, rows::add);
+        }
+        return rows;
+    }
+
+    private ColumnBinder binder(Property property, int propertyIndex, int column) {
+        Class<?> propertyType = property.type();
+        MethodHandle setter = property.setter();
+        Function<CharSequence, ?> converter = converters.get(wrap(propertyType));
+
+        //primitives without a custom converter are parsed straight from the cursor and set without boxing
+        if (converter == null && setter != null && propertyType.isPrimitive()) {
+            MethodHandle typedSetter = setter.asType(MethodType.methodType(void.class, Object.class, propertyType));
+            if (propertyType == int.class) {
+                return (target, cursor) -> {
+                    if (!isEmpty(cursor, column)) typedSetter.invokeExact(target, cursor.parseInt(column));
+                };
+            } else if (propertyType == long.class) {
+                return (target, cursor) -> {
+                    if (!isEmpty(cursor, column)) typedSetter.invokeExact(target, cursor.parseLong(column));
+                };
+            } else if (propertyType == double.class) {
+                return (target, cursor) -> {
+                    if (!isEmpty(cursor, column)) typedSetter.invokeExact(target, cursor.parseDouble(column));
+                };
+            } else if (propertyType == boolean.class) {
+                return (target, cursor) -> {
+                    if (!isEmpty(cursor, column)) typedSetter.invokeExact(target, parseBoolean(cursor.field(column)));
+                };
+            }
+        }
+
+        ValueReader reader = valueReader(propertyType, converter, column);
+        if (setter == null) {
+            return (arguments, cursor) -> ((Object[]) arguments)[propertyIndex] = reader.read(cursor);
+        }
+        MethodHandle objectSetter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return (target, cursor) -> {
+            Object value = reader.read(cursor);
+            if (value != null) objectSetter.invokeExact(target, value);
+        };
+    }
+
+    /**
+     * Creates the reader converting a field, empty and missing fields are null for object types and the default value for primitives
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ValueReader valueReader(Class<?> propertyType, Function<CharSequence, ?> converter, int column) {
+        Object emptyValue = defaultValue(propertyType);
+        Class<?> wrapped = wrap(propertyType);
+        ValueReader reader;
+        if (converter != null) {
+            reader = cursor -> converter.apply(cursor.field(column));
+        } else if (wrapped == Integer.class) {
+            reader = cursor -> cursor.parseInt(column);
+        } else if (wrapped == Long.class) {
+            reader = cursor -> cursor.parseLong(column);
+        } else if (wrapped == Double.class) {
+            reader = cursor -> cursor.parseDouble(column);
+        } else if (wrapped == Boolean.class) {
+            reader = cursor -> parseBoolean(cursor.field(column));
+        } else if (propertyType.isEnum()) {
+            Class<? extends Enum> enumType = (Class<? extends Enum>) propertyType;
+            reader = cursor -> Enum.valueOf(enumType, cursor.getString(column));
+        } else if (DEFAULT_CONVERTERS.containsKey(wrapped)) {
+            Function<CharSequence, ?> defaultConverter = DEFAULT_CONVERTERS.get(wrapped);
+            reader = cursor -> defaultConverter.apply(cursor.field(column));
+        } else {
+            throw new IllegalArgumentException("No converter registered for " + propertyType.getName());
+        }
+        return cursor -> isEmpty(cursor, column) ? emptyValue : reader.read(cursor);
+    }
+
+    /**
+     * @return true if the field is empty or missing because the row is shorter than the header
+     */
+    private static boolean isEmpty(CsvCursor cursor, int column) {
+        return column >= cursor.fieldCount() || cursor.fieldLength(column) == 0;
+    }
+
+    private static boolean parseBoolean(CharSequence value) {
+        if (value.length() == 1) {
+            char c = value.charAt(0);
+            return c == '1' || c == 't' || c == 'T' || c == 'y' || c == 'Y';
+        }
+        String text = value.toString();
+        return text.equalsIgnoreCase("true") || text.equalsIgnoreCase("yes");
+    }
+
+    private static String normalize(String name) {
+        StringBuilder builder = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                builder.append(Character.toLowerCase(c));
+            }
+        }
+        return builder.toString();
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive()) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0f;
+        return 0d;
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    private record Property(String name, Class<?> type, MethodHandle setter) {
+    }
+
+    @FunctionalInterface
+    private interface ValueReader {
+        Object read(CsvCursor cursor);
+    }
+
+    /**
+     * Writes one column of the current row into the object being created (or into the constructor arguments for records)
+     */
+    @FunctionalInterface
+    private interface ColumnBinder {
+        void bind(Object target, CsvCursor cursor) throws Throwable;
+    }
+
+    /**
+     * The mapping of a {@link CsvMapper} resolved for one header, maps rows of a {@link CsvCursor} without any further lookups
+     *
+     * @param <T> the type rows are mapped to
+     */
+    public static final class Binding<T> {
+        private final Class<T> type;
+        private final boolean isRecord;
+        private final MethodHandle constructor;
+        private final Object[] defaults;
+        private final ColumnBinder[] binders;
+
+        private Binding(Class<T> type, boolean isRecord, MethodHandle constructor, List<Property> properties, ColumnBinder[] binders) {
+            this.type = type;
+            this.isRecord = isRecord;
+            this.constructor = constructor;
+            this.binders = binders;
+            this.defaults = new Object[properties.size()];
+            for (int i = 0; i < defaults.length; i++) {
+                defaults[i] = defaultValue(properties.get(i).type());
+            }
+        }
+
+        /**
+         * Maps the current row of the cursor
+         *
+         * @param cursor the cursor positioned at the row
+         * @return the mapped row
+         * @throws IllegalArgumentException if a field could not be converted
+         */
+        public T map(@NotNull CsvCursor cursor) {
+            try {
+                if (isRecord) {
+                    Object[] arguments = defaults.clone();
+                    for (int i = 0; i < binders.length; i++) {
+                        if (binders[i] != null) binders[i].bind(arguments, cursor);
+                    }
+                    return type.cast((Object) constructor.invokeExact(arguments));
+                }
+
+                Object target = (Object) constructor.invokeExact();
+                for (ColumnBinder binder : binders) {
+                    if (binder != null) binder.bind(target, cursor);
+                }
+                return type.cast(target);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Could not map row " + cursor.getRowNumber() + " to " + type.getSimpleName() + ": " + e.getMessage(), e);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Could not create " + type.getName(), e);
+            }
+        }
+    }
+}
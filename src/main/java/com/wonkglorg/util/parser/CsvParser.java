@@ -5,13 +5,19 @@ import org.jetbrains.annotations.NotNull;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @SuppressWarnings("unused")
 public class CsvParser {
     /**
-     * Parses a CSV file and returns a list of string arrays
+     * Parses a CSV file and returns a list of string arrays, every line is split like {@link String#split(String)} so the separator is a regex, quotes are
+     * not handled and trailing empty fields are dropped. Use {@link #readCSV(String, char)} for files with quoted fields
      *
      * @param filePath  The path to the CSV file
      * @param separator The separator used in the CSV file
@@ -20,13 +26,62 @@ public class CsvParser {
      */
     public static @NotNull List<String[]> parseCSV(@NotNull String filePath, @NotNull String separator) throws IOException {
         List<String[]> csvData = new ArrayList<>();
+        Pattern pattern = Pattern.compile(separator);
         try (var br = new BufferedReader(new FileReader(filePath))) {
             String line;
             while ((line = br.readLine()) != null) {
-                var values = line.split(separator);
+                var values = pattern.split(line);
                 csvData.add(values);
             }
         }
         return csvData;
     }
+
+    /**
+     * Reads a CSV file through a {@link CsvReader}, quoted fields may contain separators and line breaks. Unlike {@link #parseCSV(String, String)} the
+     * separator is a literal character, trailing empty fields are kept and blank lines are skipped. Use {@link #stream(String, char)} for files too large to
+     * keep in memory
+     *
+     * @param filePath  The path to the CSV file
+     * @param separator The separator used in the CSV file
+     * @return A list of string arrays
+     * @throws IOException If an I/O error occurs
+     */
+    public static @NotNull List<String[]> readCSV(@NotNull String filePath, char separator) throws IOException {
+        List<String[]> csvData = new ArrayList<>();
+        try (CsvReader reader = CsvReader.open(Path.of(filePath), Charset.defaultCharset(), separator)) {
+            reader.forEachRemaining(csvData::add);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return csvData;
+    }
+
+    /**
+     * Streams the rows of a CSV file one at a time, quoted fields may contain separators and line breaks
+     *
+     * @param filePath  The path to the CSV file
+     * @param separator The separator used in the CSV file
+     * @return A stream of the rows, has to be closed (for example with try-with-resources)
+     * @throws IOException If the file could not be opened
+     */
+    public static @NotNull Stream<String[]> stream(@NotNull String filePath, char separator) throws IOException {
+        return CsvReader.open(Path.of(filePath), Charset.defaultCharset(), separator).stream();
+    }
+
+    /**
+     * Writes rows to a CSV file through a {@link CsvWriter}, fields are only quoted if needed
+     *
+     * @param filePath  The path to the CSV file, an existing file is overwritten
+     * @param separator The separator to use
+     * @param rows      The rows to write
+     * @throws IOException If an I/O error occurs
+     */
+    public static void writeCSV(@NotNull String filePath, char separator, @NotNull Iterable<? extends CharSequence[]> rows) throws IOException {
+        try (CsvWriter writer = new CsvWriter(Path.of(filePath), Charset.defaultCharset(), separator, '"', "\n", false)) {
+            writer.writeRows(rows);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 }
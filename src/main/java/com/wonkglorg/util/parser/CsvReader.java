@@ -0,0 +1,133 @@
+package com.wonkglorg.util.parser;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming RFC 4180 CSV reader, rows are parsed one at a time from a {@link Reader} so memory use does not depend on the size of the input.
+ * <ul>
+ *     <li>Fields may be quoted, quoted fields can contain separators, line breaks and quotes escaped by doubling them ("")</li>
+ *     <li>Records end at "\n", "\r\n" or "\r", empty lines are skipped</li>
+ *     <li>Malformed input is read leniently, quotes inside unquoted fields are kept and text after a closing quote is appended to the field</li>
+ * </ul>
+ * Every row is returned as a new {@link String} array, use a {@link CsvCursor} to read fields without creating any objects.
+ */
+public class CsvReader implements Iterator<String[]>, Closeable {
+    private final CsvCursor cursor;
+    private String[] next;
+
+    /**
+     * Reads comma separated values quoted with '"'
+     *
+     * @param reader the reader to read from
+     */
+    public CsvReader(@NotNull Reader reader) {
+        this(new CsvCursor(reader));
+    }
+
+    /**
+     * @param reader    the reader to read from
+     * @param separator the character separating fields
+     * @param quote     the character quoting fields
+     */
+    public CsvReader(@NotNull Reader reader, char separator, char quote) {
+        this(new CsvCursor(reader, separator, quote));
+    }
+
+    /**
+     * @param cursor the cursor to read the rows from
+     */
+    public CsvReader(@NotNull CsvCursor cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * Opens a file to read through a {@link FileChannel}
+     *
+     * @param file      the file to read
+     * @param charset   the charset of the file
+     * @param separator the character separating fields
+     * @return the reader, has to be closed
+     * @throws IOException if the file could not be opened
+     */
+    public static CsvReader open(@NotNull Path file, @NotNull Charset charset, char separator) throws IOException {
+        return new CsvReader(CsvCursor.open(file, charset, separator));
+    }
+
+    /**
+     * Reads the next row
+     *
+     * @return the fields of the row or null if there are no more rows
+     * @throws UncheckedIOException if the input could not be read
+     */
+    public String[] nextRow() {
+        if (next != null) {
+            String[] row = next;
+            next = null;
+            return row;
+        }
+        if (!cursor.next()) return null;
+
+        String[] row = new String[cursor.fieldCount()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = cursor.getString(i);
+        }
+        return row;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = nextRow();
+        }
+        return next != null;
+    }
+
+    @Override
+    public String[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return nextRow();
+    }
+
+    /**
+     * Creates a sequential stream of the remaining rows, closing the stream closes this reader
+     *
+     * @return the stream
+     */
+    public Stream<String[]> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * @return the amount of rows read so far, not counting skipped empty lines
+     */
+    public long getRowNumber() {
+        return cursor.getRowNumber() - (next == null ? 0 : 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        cursor.close();
+    }
+}
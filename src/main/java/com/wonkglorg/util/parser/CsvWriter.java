@@ -0,0 +1,321 @@
+package com.wonkglorg.util.parser;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+/**
+ * Streaming RFC 4180 CSV writer, fields are copied into a reusable char buffer which is encoded and written to a {@link FileChannel} in large blocks.
+ * <p>
+ * Fields are only quoted if they contain the separator, the quote or a line break, quotes inside quoted fields are doubled. Rows can be written as a whole with
+ * {@link #writeRow(CharSequence...)} or field by field with {@link #field(CharSequence)}, {@link #field(long)}, {@link #field(double)} and {@link #endRow()},
+ * which does not need an array per row.
+ */
+public class CsvWriter implements Closeable, Flushable {
+    private static final int CHAR_BUFFER_SIZE = 64 * 1024;
+    private static final int BYTE_BUFFER_SIZE = 256 * 1024;
+
+    private final FileChannel channel;
+    private final CharsetEncoder encoder;
+    private final char separator;
+    private final char quote;
+    private final String lineSeparator;
+    private final char[] chars = new char[CHAR_BUFFER_SIZE];
+    private final CharBuffer charView = CharBuffer.wrap(chars);
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BYTE_BUFFER_SIZE);
+    private int length = 0;
+    private int rowFields = 0;
+    private boolean lastFieldEmpty = false;
+    private long rowCount = 0;
+
+    /**
+     * Writes comma separated values with '\n' line breaks, an existing file is overwritten
+     *
+     * @param file    the file to write to
+     * @param charset the charset to write in
+     * @throws IOException if the file could not be opened
+     */
+    public CsvWriter(@NotNull Path file, @NotNull Charset charset) throws IOException {
+        this(file, charset, ',', '"', "\n", false);
+    }
+
+    /**
+     * @param file          the file to write to
+     * @param charset       the charset to write in
+     * @param separator     the character separating fields
+     * @param quote         the character quoting fields
+     * @param lineSeparator the line break ending every row, RFC 4180 uses "\r\n"
+     * @param append        true to append to an existing file, false to overwrite it
+     * @throws IOException if the file could not be opened
+     */
+    public CsvWriter(@NotNull Path file, @NotNull Charset charset, char separator, char quote, @NotNull String lineSeparator, boolean append) throws IOException {
+        if (separator == quote || separator == '\n' || separator == '\r' || quote == '\n' || quote == '\r') {
+            throw new IllegalArgumentException("Separator and quote have to be distinct and not line breaks");
+        }
+        this.channel = append
+                ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+                : FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.separator = separator;
+        this.quote = quote;
+        this.lineSeparator = lineSeparator;
+    }
+
+    /**
+     * Writes a row, null fields are written as empty fields
+     *
+     * @param fields the fields of the row
+     * @return the CsvWriter instance
+     * @throws UncheckedIOException if the buffer could not be written to the file
+     */
+    public CsvWriter writeRow(@NotNull CharSequence... fields) {
+        for (CharSequence field : fields) {
+            field(field);
+        }
+        return endRow();
+    }
+
+    /**
+     * Writes a row, null fields are written as empty fields
+     *
+     * @param fields the fields of the row
+     * @return the CsvWriter instance
+     * @throws UncheckedIOException if the buffer could not be written to the file
+     */
+    public CsvWriter writeRow(@NotNull Iterable<? extends CharSequence> fields) {
+        for (CharSequence field : fields) {
+            field(field);
+        }
+        return endRow();
+    }
+
+    /**
+     * Writes every remaining row of the iterator
+     *
+     * @param rows the rows to write
+     * @return the CsvWriter instance
+     * @throws UncheckedIOException if the buffer could not be written to the file
+     */
+    public CsvWriter writeRows(@NotNull Iterator<? extends CharSequence[]> rows) {
+        while (rows.hasNext()) {
+            writeRow(rows.next());
+        }
+        return this;
+    }
+
+    /**
+     * Writes every row
+     *
+     * @param rows the rows to write
+     * @return the CsvWriter instance
+     * @throws UncheckedIOException if the buffer could not be written to the file
+     */
+    public CsvWriter writeRows(@NotNull Iterable<? extends CharSequence[]> rows) {
+        return writeRows(rows.iterator());
+    }
+
+    /**
+     * Adds a field to the current row, quoted if needed
+     *
+     * @param value the value, null is written as an empty field
+     * @return the CsvWriter instance
+     * @throws UncheckedIOException if the buffer could not be written to the file
+     */
+    public CsvWriter field(CharSequence value) {
+        startField();
+        int valueLength = value == null ? 0 : value.length();
+        lastFieldEmpty = valueLength == 0;
+        if (valueLength == 0) return this;
+
+        if (!needsQuotes(value, valueLength)) {
+            for (int i = 0; i < valueLength; i++) {
+                put(value.charAt(i));
+            }
+            return this;
+        }
+
+        put(quote);
+        for (int i = 0; i < valueLength; i++) {
+            char c = value.charAt(i);
+            if (c == quote) put(quote);
+            put(c);
+        }
+        put(quote);
+        return this;
+    }
+
+    /**
+     * Adds a number to the current row, its digits are written straight into the buffer
+     *
+     * @param value the value
+     * @return the CsvWriter instance
+     * @throws UncheckedIOException if the buffer could not be written to the file
+     */
+    public CsvWriter field(long value) {
+        startField();
+        if (value == Long.MIN_VALUE) {
+            for (char c : "-9223372036854775808".toCharArray()) put(c);
+            return this;
+        }
+        if (value < 0) {
+            put('-');
+            value = -value;
+        }
+        if (length + 19 > chars.length) flushChars();
+        int digits = 1;
+        for (long remaining = value / 10; remaining > 0; remaining /= 10) digits++;
+        for (int i = length + digits - 1; i >= length; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+        return this;
+    }
+
+    /**
+     * Adds a number to the current row in the format of {@link Double#toString(double)}
+     *
+     * @param value the value
+     * @return the CsvWriter instance
+     * @throws UncheckedIOException if the buffer could not be written to the file
+     */
+    public CsvWriter field(double value) {
+        if (value == (long) value && Math.abs(value) < 1e7 && !(value == 0 && 1 / value < 0)) {
+            //whole numbers skip the string conversion, the ".0" keeps the output identical to Double.toString
+            field((long) value);
+            put('.');
+            put('0');
+            return this;
+        }
+        return field(Double.toString(value));
+    }
+
+    /**
+     * Ends the current row
+     *
+     * @return the CsvWriter instance
+     * @throws UncheckedIOException if the buffer could not be written to the file
+     */
+    public CsvWriter endRow() {
+        //a row of a single empty field would otherwise be an empty line, which readers skip
+        if (rowFields == 1 && lastFieldEmpty) {
+            put(quote);
+            put(quote);
+        }
+        for (int i = 0; i < lineSeparator.length(); i++) {
+            put(lineSeparator.charAt(i));
+        }
+        rowFields = 0;
+        rowCount++;
+        return this;
+    }
+
+    /**
+     * @return the amount of rows written so far
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Writes all buffered rows to the file
+     *
+     * @throws IOException if the rows could not be written
+     */
+    @Override
+    public void flush() throws IOException {
+        try {
+            flushChars();
+            writeBytes();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes all buffered rows and closes the file, an unfinished row is ended first
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rowFields > 0) endRow();
+            charView.clear().limit(length);
+            while (encoder.encode(charView, bytes, true).isOverflow()) {
+                writeBytes();
+            }
+            while (encoder.flush(bytes).isOverflow()) {
+                writeBytes();
+            }
+            writeBytes();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void startField() {
+        if (rowFields > 0) {
+            put(separator);
+        }
+        rowFields++;
+        lastFieldEmpty = false;
+    }
+
+    private boolean needsQuotes(CharSequence value, int valueLength) {
+        for (int i = 0; i < valueLength; i++) {
+            char c = value.charAt(i);
+            if (c == separator || c == quote || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+
+    private void put(char c) {
+        if (length == chars.length) flushChars();
+        chars[length++] = c;
+    }
+
+    /**
+     * Encodes the char buffer into the byte buffer, writing the byte buffer to the file whenever it is full
+     */
+    private void flushChars() {
+        charView.clear().limit(length);
+        while (true) {
+            CoderResult result = encoder.encode(charView, bytes, false);
+            if (!result.isOverflow()) break;
+            writeBytes();
+        }
+        //a high surrogate at the end waits for its low surrogate
+        int remaining = charView.remaining();
+        System.arraycopy(chars, charView.position(), chars, 0, remaining);
+        length = remaining;
+    }
+
+    private void writeBytes() {
+        bytes.flip();
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            bytes.clear();
+        }
+    }
+}
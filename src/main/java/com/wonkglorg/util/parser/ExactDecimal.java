@@ -0,0 +1,44 @@
+package com.wonkglorg.util.parser;
+
+/**
+ * Converts a decimal mantissa and power of ten to a double with a single multiplication or division, which is correctly rounded as long as both the mantissa and
+ * the power of ten are exact doubles. Callers check {@link #isExact(long, int)} first and fall back to {@link Double#parseDouble(String)} otherwise.
+ */
+final class ExactDecimal {
+    /**
+     * Largest mantissa that converts to a double without rounding
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Powers of ten exactly representable as a double
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private ExactDecimal() {
+    }
+
+    /**
+     * @param mantissa the digits as a whole number, not negative
+     * @param exponent the power of ten the mantissa is multiplied with
+     * @return true if {@link #toDouble(long, int)} returns the correctly rounded value
+     */
+    static boolean isExact(long mantissa, int exponent) {
+        if (mantissa == 0) return true;
+        return mantissa > 0 && mantissa <= MAX_EXACT_MANTISSA && exponent >= -(POWERS_OF_TEN.length - 1) && exponent < POWERS_OF_TEN.length;
+    }
+
+    /**
+     * @param mantissa the digits as a whole number, not negative
+     * @param exponent the power of ten the mantissa is multiplied with
+     * @return the positive value, only correctly rounded if {@link #isExact(long, int)}
+     */
+    static double toDouble(long mantissa, int exponent) {
+        if (mantissa == 0) return 0.0;
+        double value = mantissa;
+        return exponent < 0 ? value / POWERS_OF_TEN[-exponent] : value * POWERS_OF_TEN[exponent];
+    }
+}
@@ -1,47 +1,485 @@
 package com.wonkglorg.util.parser;
 
-import java.text.NumberFormat;
-import java.text.ParseException;
-import java.util.Locale;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
 
+/**
+ * Parses numbers written with either English ("1,234.5") or German ("1.234,5") separators in a single pass over the chars, without {@link java.text.NumberFormat}
+ * and without exceptions for invalid input.
+ * <p>
+ * The decimal separator is detected from the input: if both '.' and ',' appear the last one is the decimal separator, a separator appearing more than once is a
+ * grouping separator, and a single ',' followed by exactly three digits (like "1,500") is read as English grouping while any other single separator is a decimal
+ * separator. Spaces, non breaking spaces and apostrophes are always grouping separators. Surrounding whitespace, a leading sign and an exponent ("1.5e3") are
+ * allowed, anything else makes the input invalid.
+ */
 public class GenericNumberParser {
+	private static final long[] LONG_POWERS_OF_TEN = {
+			1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L, 10000000000L, 100000000000L, 1000000000000L,
+			10000000000000L, 100000000000000L, 1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L
+	};
+	private static final long MANTISSA_LIMIT = Long.MAX_VALUE / 10;
 
+	/**
+	 * Parses a number detecting its separators
+	 *
+	 * @param input the text to parse
+	 * @return an {@link Integer} or {@link Long} for whole numbers, a {@link Float} or {@link Double} otherwise, null if the input is not a number
+	 */
 	public static Number parseNumber(String input) {
-		// Attempt parsing in English locale
-		Number number = tryParse(input, Locale.ENGLISH);
-		if (number == null) {
-			// If English fails, try German locale
-			number = tryParse(input, Locale.GERMAN);
+		if (input == null) return null;
+		Scan scan = new Scan();
+		if (!scan.scan(input, 0, input.length(), '\0')) return null;
+
+		if (scan.isWhole()) {
+			long longValue = scan.toLong();
+			if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
+				return (int) longValue;
+			} else {
+				return longValue;
+			}
+		}
+		double doubleValue = scan.toDouble(input);
+		if (doubleValue >= Float.MIN_VALUE && doubleValue <= Float.MAX_VALUE) {
+			return (float) doubleValue;
+		} else {
+			return doubleValue;
+		}
+	}
+
+	/**
+	 * @param input the text to check
+	 * @return true if the input is a number with English or German separators
+	 */
+	public static boolean isNumber(CharSequence input) {
+		return input != null && new Scan().scan(input, 0, input.length(), '\0');
+	}
+
+	/**
+	 * Parses a whole number detecting its separators, "2.0" is a whole number
+	 *
+	 * @param input    the text to parse
+	 * @param fallback the value returned if the input is not a whole number or out of range
+	 * @return the parsed value or the fallback
+	 */
+	public static int parseInt(CharSequence input, int fallback) {
+		if (input == null) return fallback;
+		Scan scan = new Scan();
+		if (!scan.scan(input, 0, input.length(), '\0') || !scan.isWhole()) return fallback;
+		long value = scan.toLong();
+		return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? fallback : (int) value;
+	}
+
+	/**
+	 * Parses a whole number detecting its separators, "2.0" is a whole number
+	 *
+	 * @param input    the text to parse
+	 * @param fallback the value returned if the input is not a whole number or out of range
+	 * @return the parsed value or the fallback
+	 */
+	public static long parseLong(CharSequence input, long fallback) {
+		return parseLong(input, '\0', fallback);
+	}
+
+	/**
+	 * Parses a whole number using a known decimal separator, the other one of '.' and ',' is a grouping separator
+	 *
+	 * @param input            the text to parse
+	 * @param decimalSeparator '.' or ','
+	 * @param fallback         the value returned if the input is not a whole number or out of range
+	 * @return the parsed value or the fallback
+	 */
+	public static long parseLong(CharSequence input, char decimalSeparator, long fallback) {
+		if (input == null) return fallback;
+		Scan scan = new Scan();
+		if (!scan.scan(input, 0, input.length(), decimalSeparator) || !scan.isWhole()) return fallback;
+		return scan.toLong();
+	}
+
+	/**
+	 * Parses a number detecting its separators
+	 *
+	 * @param input    the text to parse
+	 * @param fallback the value returned if the input is not a number
+	 * @return the parsed value or the fallback
+	 */
+	public static double parseDouble(CharSequence input, double fallback) {
+		return parseDouble(input, '\0', fallback);
+	}
+
+	/**
+	 * Parses a number using a known decimal separator, the other one of '.' and ',' is a grouping separator
+	 *
+	 * @param input            the text to parse
+	 * @param decimalSeparator '.' or ','
+	 * @param fallback         the value returned if the input is not a number
+	 * @return the parsed value or the fallback
+	 */
+	public static double parseDouble(CharSequence input, char decimalSeparator, double fallback) {
+		if (input == null) return fallback;
+		Scan scan = new Scan();
+		if (!scan.scan(input, 0, input.length(), decimalSeparator)) return fallback;
+		return scan.toDouble(input);
+	}
+
+	/**
+	 * The type and separator convention of a column
+	 *
+	 * @param type             the narrowest type all sampled values fit into
+	 * @param decimalSeparator '.' or ','
+	 */
+	public record ColumnFormat(NumberColumn.Type type, char decimalSeparator) {
+	}
+
+	/**
+	 * Infers the type and decimal separator of a column from a sample spread evenly over it. Values with an unambiguous separator vote for a convention, '.'
+	 * wins ties. The column is {@link NumberColumn.Type#TEXT} if most non empty sampled values are not numbers.
+	 *
+	 * @param values     the column, null and blank values are skipped
+	 * @param sampleSize the maximum amount of values to look at
+	 * @return the inferred format
+	 */
+	public static ColumnFormat inferColumn(List<? extends CharSequence> values, int sampleSize) {
+		int size = values.size();
+		int step = Math.max(1, size / Math.max(1, sampleSize));
+		Scan scan = new Scan();
+
+		int english = 0;
+		int german = 0;
+		for (int i = 0; i < size; i += step) {
+			CharSequence value = values.get(i);
+			if (value == null || !scan.scan(value, 0, value.length(), '\0') || scan.ambiguous) continue;
+			if (scan.decimalSeparator == '.' || scan.groupingSeparator == ',') english++;
+			if (scan.decimalSeparator == ',' || scan.groupingSeparator == '.') german++;
 		}
-		return number;
+		char decimalSeparator = german > english ? ',' : '.';
+
+		NumberColumn.Type type = NumberColumn.Type.INT;
+		long[] maxAbsWhole = {0};
+		int numbers = 0;
+		int invalid = 0;
+		for (int i = 0; i < size; i += step) {
+			CharSequence value = values.get(i);
+			if (isBlank(value)) continue;
+			if (!scan.scan(value, 0, value.length(), decimalSeparator)) {
+				invalid++;
+				continue;
+			}
+			numbers++;
+			type = NumberColumn.join(type, NumberColumn.typeOf(scan, value, maxAbsWhole), maxAbsWhole[0]);
+		}
+		return new ColumnFormat(numbers == 0 || invalid > numbers ? NumberColumn.Type.TEXT : type, decimalSeparator);
+	}
+
+	/**
+	 * Parses a column into a single primitive array, inferring its format from up to 1000 values first
+	 *
+	 * @param values the column, null and blank values are marked as missing
+	 * @return the parsed column
+	 */
+	public static NumberColumn parseColumn(List<? extends CharSequence> values) {
+		return parseColumn(values, inferColumn(values, 1000));
 	}
 
-	private static Number tryParse(String input, Locale locale) {
-		NumberFormat format = NumberFormat.getInstance(locale);
-		try {
-			Number number = format.parse(input);
+	/**
+	 * Parses a column into a single primitive array, inferring its format from up to 1000 values first
+	 *
+	 * @param values the column, null and blank values are marked as missing
+	 * @return the parsed column
+	 */
+	public static NumberColumn parseColumn(CharSequence[] values) {
+		return parseColumn(Arrays.asList(values));
+	}
+
+	/**
+	 * Parses a column into a single primitive array of the given format. Values the sample missed that do not fit the type widen the whole column, invalid values
+	 * are marked as missing and counted.
+	 *
+	 * @param values the column, null and blank values are marked as missing
+	 * @param format the format of the column, usually from {@link #inferColumn(List, int)}
+	 * @return the parsed column, without values if the format is {@link NumberColumn.Type#TEXT}
+	 */
+	public static NumberColumn parseColumn(List<? extends CharSequence> values, ColumnFormat format) {
+		int size = values.size();
+		NumberColumn column = new NumberColumn(size, format.type(), format.decimalSeparator());
+		if (format.type() == NumberColumn.Type.TEXT) return column;
 
-			// Convert to the most suitable type
-			if (number instanceof Long || number.doubleValue() == Math.floor(number.doubleValue())) {
-				long longValue = number.longValue();
-				if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
-					return (int) longValue;
+		Scan scan = new Scan();
+		long[] maxAbsWhole = {0};
+		for (int i = 0; i < size; i++) {
+			CharSequence value = values.get(i);
+			if (isBlank(value)) {
+				column.setMissing(i, false);
+			} else if (!scan.scan(value, 0, value.length(), format.decimalSeparator())) {
+				column.setMissing(i, true);
+			} else {
+				column.set(i, scan, value, maxAbsWhole);
+			}
+		}
+		return column;
+	}
+
+	private static boolean isBlank(CharSequence value) {
+		if (value == null) return true;
+		for (int i = 0; i < value.length(); i++) {
+			if (!Character.isWhitespace(value.charAt(i))) return false;
+		}
+		return true;
+	}
+
+	private static boolean isGrouping(char c) {
+		return c == ' ' || c == '\u00A0' || c == '\u202F' || c == '\'';
+	}
+
+	/**
+	 * The result of scanning a number once, the value is mantissa * 10^exponent() with separators already resolved
+	 */
+	static final class Scan {
+		boolean negative;
+		/**
+		 * The leading significant digits, as many as fit into a long. {@link Long#MIN_VALUE} stands for 2^63, which only fits when negative
+		 */
+		long mantissa;
+		/**
+		 * Significant digits that did not fit into the mantissa
+		 */
+		int droppedDigits;
+		/**
+		 * Digits after the decimal separator
+		 */
+		int fractionDigits;
+		int explicitExponent;
+		/**
+		 * The decimal separator used or '\0' if there was none
+		 */
+		char decimalSeparator;
+		/**
+		 * True if a single separator was read as decimal or grouping separator only by its position, the input is valid in both conventions
+		 */
+		boolean ambiguous;
+		/**
+		 * '.' or ',' if it was used as grouping separator, '\0' otherwise
+		 */
+		char groupingSeparator;
+		/**
+		 * Digits without leading zeros, including those that did not fit into the mantissa
+		 */
+		int significantDigits;
+		int start;
+		int end;
+
+		/**
+		 * Scans the range, resetting everything read before
+		 *
+		 * @param forcedDecimal '.' or ',' to use a known decimal separator, '\0' to detect it
+		 * @return true if the range is a valid number
+		 */
+		boolean scan(CharSequence input, int from, int to, char forcedDecimal) {
+			negative = false;
+			mantissa = 0;
+			droppedDigits = 0;
+			fractionDigits = 0;
+			explicitExponent = 0;
+			decimalSeparator = '\0';
+			ambiguous = false;
+			groupingSeparator = '\0';
+			significantDigits = 0;
+
+			while (from < to && Character.isWhitespace(input.charAt(from))) from++;
+			while (to > from && Character.isWhitespace(input.charAt(to - 1))) to--;
+			start = from;
+			end = to;
+			int i = from;
+			if (i < to && (input.charAt(i) == '-' || input.charAt(i) == '+')) {
+				negative = input.charAt(i) == '-';
+				i++;
+			}
+
+			int totalDigits = 0;
+			int digitsBeforeFirstSeparator = -1;
+			int digitsSinceSeparator = 0;
+			int dots = 0;
+			int commas = 0;
+			char lastSeparator = '\0';
+			boolean otherGroupingSeen = false;
+			boolean previousWasDigit = false;
+			boolean leadingSeparator = false;
+			boolean firstDigitZero = false;
+
+			for (; i < to; i++) {
+				char c = input.charAt(i);
+				if (c >= '0' && c <= '9') {
+					if (totalDigits == 0) firstDigitZero = c == '0';
+					totalDigits++;
+					digitsSinceSeparator++;
+					previousWasDigit = true;
+					if (mantissa == 0 && c == '0') continue;
+					significantDigits++;
+					//digits that would overflow the mantissa are only counted, a negative number may reach Long.MIN_VALUE
+					if (droppedDigits == 0 && (mantissa >= 0 && mantissa < MANTISSA_LIMIT || mantissa == MANTISSA_LIMIT && (c <= '7' || c == '8' && negative))) {
+						mantissa = mantissa * 10 + (c - '0');
+					} else {
+						droppedDigits++;
+					}
+				} else if (c == '.' || c == ',') {
+					if (!previousWasDigit) {
+						//only a lone decimal separator like ".5" may start the number
+						if (totalDigits > 0 || lastSeparator != '\0') return false;
+						leadingSeparator = true;
+					}
+					if (c == '.') dots++;
+					else commas++;
+					if (digitsBeforeFirstSeparator < 0) digitsBeforeFirstSeparator = totalDigits;
+					lastSeparator = c;
+					digitsSinceSeparator = 0;
+					previousWasDigit = false;
+				} else if (isGrouping(c)) {
+					if (!previousWasDigit || i + 1 >= to || !Character.isDigit(input.charAt(i + 1))) return false;
+					otherGroupingSeen = true;
+					previousWasDigit = false;
+				} else if ((c == 'e' || c == 'E') && totalDigits > 0) {
+					i = scanExponent(input, i + 1, to);
+					if (i < 0) return false;
+					break;
 				} else {
-					return longValue;
+					return false;
 				}
+			}
+			if (totalDigits == 0) return false;
+			boolean trailingSeparator = !previousWasDigit && lastSeparator != '\0' && digitsSinceSeparator == 0;
+
+			//resolve which separator is the decimal separator
+			char decimal;
+			if (forcedDecimal != '\0') {
+				decimal = (forcedDecimal == '.' ? dots : commas) > 0 ? forcedDecimal : '\0';
+				if (decimal != '\0' && lastSeparator != decimal) return false;
+			} else if (dots > 0 && commas > 0) {
+				decimal = lastSeparator;
+			} else if (dots + commas == 0) {
+				decimal = '\0';
+			} else if (dots + commas > 1) {
+				decimal = '\0';
+			} else if (otherGroupingSeen || leadingSeparator || trailingSeparator) {
+				decimal = lastSeparator;
+			} else if (lastSeparator == ',' && digitsSinceSeparator == 3 && digitsBeforeFirstSeparator <= 3 && !firstDigitZero) {
+				decimal = '\0';
+				ambiguous = true;
 			} else {
-				double doubleValue = number.doubleValue();
-				if (doubleValue >= Float.MIN_VALUE && doubleValue <= Float.MAX_VALUE) {
-					return (float) doubleValue;
-				} else {
-					return doubleValue;
+				decimal = lastSeparator;
+				ambiguous = digitsSinceSeparator == 3 && digitsBeforeFirstSeparator <= 3 && !firstDigitZero;
+			}
+
+			if (decimal != '\0') {
+				//the decimal separator has to appear once, after all grouping separators
+				if ((decimal == '.' ? dots : commas) != 1) return false;
+				fractionDigits = digitsSinceSeparator;
+			} else if (leadingSeparator || trailingSeparator) {
+				return false;
+			}
+			decimalSeparator = decimal;
+			if (decimal != ',' && commas > 0) groupingSeparator = ',';
+			else if (decimal != '.' && dots > 0) groupingSeparator = '.';
+			return true;
+		}
+
+		/**
+		 * @return the index after the exponent or -1 if it is invalid
+		 */
+		private int scanExponent(CharSequence input, int i, int to) {
+			boolean negativeExponent = false;
+			if (i < to && (input.charAt(i) == '-' || input.charAt(i) == '+')) {
+				negativeExponent = input.charAt(i) == '-';
+				i++;
+			}
+			if (i >= to) return -1;
+			int exponent = 0;
+			for (; i < to; i++) {
+				char c = input.charAt(i);
+				if (c < '0' || c > '9') return -1;
+				if (exponent < 100000) exponent = exponent * 10 + (c - '0');
+			}
+			explicitExponent = negativeExponent ? -exponent : exponent;
+			return i;
+		}
+
+		/**
+		 * @return the power of ten the mantissa has to be multiplied with
+		 */
+		int exponent() {
+			return droppedDigits + explicitExponent - fractionDigits;
+		}
+
+		/**
+		 * @return true if the value is a whole number within the range of a long
+		 */
+		boolean isWhole() {
+			if (mantissa == 0) return true;
+			if (droppedDigits > 0) return false;
+			int exponent = exponent();
+			//2^63 is not divisible by 10 and cannot be scaled up
+			if (mantissa == Long.MIN_VALUE) return exponent == 0;
+			if (exponent >= 0) {
+				if (exponent >= LONG_POWERS_OF_TEN.length) return false;
+				long power = LONG_POWERS_OF_TEN[exponent];
+				return mantissa <= Long.MAX_VALUE / power;
+			}
+			return -exponent < LONG_POWERS_OF_TEN.length && mantissa % LONG_POWERS_OF_TEN[-exponent] == 0;
+		}
+
+		/**
+		 * @return the value as a long, only valid if {@link #isWhole()}
+		 */
+		long toLong() {
+			if (mantissa == 0) return 0;
+			int exponent = exponent();
+			long value = exponent >= 0 ? mantissa * LONG_POWERS_OF_TEN[exponent] : mantissa / LONG_POWERS_OF_TEN[-exponent];
+			//negating Long.MIN_VALUE leaves it unchanged
+			return negative ? -value : value;
+		}
+
+		/**
+		 * @param input the text that was scanned, only read again for values that cannot be computed exactly from the mantissa
+		 * @return the value as a double
+		 */
+		double toDouble(CharSequence input) {
+			if (mantissa == 0) return negative ? -0.0 : 0.0;
+			int exponent = exponent();
+			if (droppedDigits == 0 && ExactDecimal.isExact(mantissa, exponent)) {
+				double value = ExactDecimal.toDouble(mantissa, exponent);
+				return negative ? -value : value;
+			}
+
+			//all digits are needed to round correctly, the syntax was already checked so this cannot throw
+			StringBuilder builder = new StringBuilder(end - start + 8);
+			if (negative) builder.append('-');
+			for (int i = start; i < end; i++) {
+				char c = input.charAt(i);
+				if (c == 'e' || c == 'E') break;
+				if (c >= '0' && c <= '9') builder.append(c);
+			}
+			builder.append('E').append((long) explicitExponent - fractionDigits);
+			return Double.parseDouble(builder.toString());
+		}
+
+		/**
+		 * @param input the text that was scanned, only read again if not all digits fit into the mantissa
+		 * @return the exact value
+		 */
+		BigDecimal toBigDecimal(CharSequence input) {
+			BigDecimal value;
+			if (droppedDigits == 0 && mantissa != Long.MIN_VALUE) {
+				value = BigDecimal.valueOf(mantissa, -exponent());
+			} else {
+				StringBuilder digits = new StringBuilder(end - start);
+				for (int i = start; i < end; i++) {
+					char c = input.charAt(i);
+					if (c == 'e' || c == 'E') break;
+					if (c >= '0' && c <= '9') digits.append(c);
 				}
+				value = new BigDecimal(new BigInteger(digits.toString()), fractionDigits - explicitExponent);
 			}
-		} catch (ParseException e) {
-			// Parsing failed for this locale
-			return null;
+			return negative ? value.negate() : value;
 		}
 	}
 }
-
-
@@ -0,0 +1,268 @@
+package com.wonkglorg.util.parser;
+
+import java.math.BigDecimal;
+import java.util.BitSet;
+
+/**
+ * A column of numbers parsed by {@link GenericNumberParser#parseColumn(java.util.List)} into a single primitive array of its narrowest type.
+ * <p>
+ * Only the array matching {@link #getType()} is set. Empty and invalid values are marked as missing and hold 0 (or null for {@link Type#DECIMAL}).
+ */
+public class NumberColumn {
+    /**
+     * The type of a column, from narrowest to widest
+     */
+    public enum Type {
+        /**
+         * Whole numbers within the range of an int
+         */
+        INT,
+        /**
+         * Whole numbers within the range of a long
+         */
+        LONG,
+        /**
+         * Numbers with up to 6 significant digits within the range of a float, whole numbers up to 2^24
+         */
+        FLOAT,
+        /**
+         * Numbers with up to 15 significant digits within the range of a double, whole numbers up to 2^53
+         */
+        DOUBLE,
+        /**
+         * Any number, kept exactly as {@link BigDecimal}
+         */
+        DECIMAL,
+        /**
+         * Not a numeric column, no values are parsed
+         */
+        TEXT
+    }
+
+    private static final long MAX_EXACT_FLOAT = 1L << 24;
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    private final int size;
+    private final char decimalSeparator;
+    private final BitSet missing = new BitSet();
+    private Type type;
+    private int invalidCount = 0;
+    private int[] ints;
+    private long[] longs;
+    private float[] floats;
+    private double[] doubles;
+    private BigDecimal[] decimals;
+
+    NumberColumn(int size, Type type, char decimalSeparator) {
+        this.size = size;
+        this.type = type;
+        this.decimalSeparator = decimalSeparator;
+        switch (type) {
+            case INT -> ints = new int[size];
+            case LONG -> longs = new long[size];
+            case FLOAT -> floats = new float[size];
+            case DOUBLE -> doubles = new double[size];
+            case DECIMAL -> decimals = new BigDecimal[size];
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * @return the type of the column, the array with the values is the one of that type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the decimal separator the values were parsed with
+     */
+    public char getDecimalSeparator() {
+        return decimalSeparator;
+    }
+
+    /**
+     * @return the amount of values in the column
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index the index of the value
+     * @return true if the value was empty or not a number
+     */
+    public boolean isMissing(int index) {
+        return missing.get(index);
+    }
+
+    /**
+     * @return the amount of values that were not empty but could not be parsed
+     */
+    public int getInvalidCount() {
+        return invalidCount;
+    }
+
+    /**
+     * @return the values of an {@link Type#INT} column, null for other types
+     */
+    public int[] getInts() {
+        return ints;
+    }
+
+    /**
+     * @return the values of a {@link Type#LONG} column, null for other types
+     */
+    public long[] getLongs() {
+        return longs;
+    }
+
+    /**
+     * @return the values of a {@link Type#FLOAT} column, null for other types
+     */
+    public float[] getFloats() {
+        return floats;
+    }
+
+    /**
+     * @return the values of a {@link Type#DOUBLE} column, null for other types
+     */
+    public double[] getDoubles() {
+        return doubles;
+    }
+
+    /**
+     * @return the values of a {@link Type#DECIMAL} column, null for other types
+     */
+    public BigDecimal[] getDecimals() {
+        return decimals;
+    }
+
+    /**
+     * @param index the index of the value
+     * @return the value as a double whatever the type of the column, NaN if it is missing
+     */
+    public double getDouble(int index) {
+        if (missing.get(index)) return Double.NaN;
+        return switch (type) {
+            case INT -> ints[index];
+            case LONG -> longs[index];
+            case FLOAT -> floats[index];
+            case DOUBLE -> doubles[index];
+            case DECIMAL -> decimals[index].doubleValue();
+            case TEXT -> Double.NaN;
+        };
+    }
+
+    void setMissing(int index, boolean invalid) {
+        missing.set(index);
+        if (invalid) invalidCount++;
+    }
+
+    /**
+     * Stores a scanned value, widening the column first if the value does not fit its current type
+     */
+    void set(int index, GenericNumberParser.Scan scan, CharSequence input, long[] maxAbsWhole) {
+        Type target = join(type, typeOf(scan, input, maxAbsWhole), maxAbsWhole[0]);
+        if (target != type) {
+            widen(target);
+        }
+        switch (type) {
+            case INT -> ints[index] = (int) scan.toLong();
+            case LONG -> longs[index] = scan.toLong();
+            case FLOAT -> floats[index] = (float) scan.toDouble(input);
+            case DOUBLE -> doubles[index] = scan.toDouble(input);
+            case DECIMAL -> decimals[index] = scan.toBigDecimal(input);
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Finds the narrowest type able to hold the value on its own
+     *
+     * @param maxAbsWhole the largest absolute whole number seen so far, updated by this call for whole numbers
+     */
+    static Type typeOf(GenericNumberParser.Scan scan, CharSequence input, long[] maxAbsWhole) {
+        Type type;
+        if (scan.isWhole()) {
+            long value = scan.toLong();
+            long abs = value == Long.MIN_VALUE ? Long.MAX_VALUE : Math.abs(value);
+            maxAbsWhole[0] = Math.max(maxAbsWhole[0], abs);
+            type = value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? Type.INT : Type.LONG;
+        } else {
+            double value = Math.abs(scan.toDouble(input));
+            boolean finite = value != 0 && !Double.isInfinite(value);
+            if (finite && scan.significantDigits <= 6 && value >= Float.MIN_NORMAL && value <= Float.MAX_VALUE) {
+                type = Type.FLOAT;
+            } else if (finite && scan.significantDigits <= 15 && value >= Double.MIN_NORMAL) {
+                type = Type.DOUBLE;
+            } else {
+                type = Type.DECIMAL;
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Combines the types of two values of the same column
+     */
+    static Type join(Type a, Type b, long maxAbsWhole) {
+        Type wider = a.ordinal() >= b.ordinal() ? a : b;
+        //whole numbers mixed with fractions have to stay exact in the fractional type
+        if (wider == Type.FLOAT && maxAbsWhole > MAX_EXACT_FLOAT) wider = Type.DOUBLE;
+        if (wider == Type.DOUBLE && maxAbsWhole > MAX_EXACT_DOUBLE) wider = Type.DECIMAL;
+        return wider;
+    }
+
+    /**
+     * Converts the values parsed so far to a wider type
+     */
+    private void widen(Type target) {
+        switch (target) {
+            case LONG -> {
+                longs = new long[size];
+                for (int i = 0; i < size; i++) longs[i] = ints[i];
+            }
+            case FLOAT -> {
+                floats = new float[size];
+                for (int i = 0; i < size; i++) floats[i] = type == Type.INT ? ints[i] : longs[i];
+            }
+            case DOUBLE -> {
+                doubles = new double[size];
+                for (int i = 0; i < size; i++) {
+                    doubles[i] = switch (type) {
+                        case INT -> ints[i];
+                        case LONG -> longs[i];
+                        //the decimal text of a float, not its binary value
+                        default -> Double.parseDouble(Float.toString(floats[i]));
+                    };
+                }
+            }
+            case DECIMAL -> {
+                decimals = new BigDecimal[size];
+                for (int i = 0; i < size; i++) {
+                    if (missing.get(i)) continue;
+                    decimals[i] = switch (type) {
+                        case INT -> BigDecimal.valueOf(ints[i]);
+                        case LONG -> BigDecimal.valueOf(longs[i]);
+                        case FLOAT -> new BigDecimal(Float.toString(floats[i]));
+                        default -> BigDecimal.valueOf(doubles[i]);
+                    };
+                }
+            }
+            default -> throw new IllegalArgumentException("Cannot widen to " + target);
+        }
+        //the array of the previous type is no longer needed
+        switch (type) {
+            case INT -> ints = null;
+            case LONG -> longs = null;
+            case FLOAT -> floats = null;
+            case DOUBLE -> doubles = null;
+            default -> {
+            }
+        }
+        type = target;
+    }
+}
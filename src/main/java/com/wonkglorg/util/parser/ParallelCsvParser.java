@@ -0,0 +1,373 @@
+package com.wonkglorg.util.parser;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Parses a large CSV file on several cores by splitting it into byte ranges that each start at a record boundary and parsing every range with its own
+ * {@link CsvCursor} on a {@link ForkJoinPool}.
+ * <p>
+ * A line break only ends a record when it is outside of quotes, so boundaries are found in two passes: the quotes of every range are counted in parallel, the
+ * running count tells whether a range starts inside a quoted field, and the first line break after each range start with an even amount of quotes before it
+ * becomes the boundary. This requires well formed quoting (no quote characters inside unquoted fields) and a charset encoding the quote and '\n' as single
+ * bytes that never appear inside other characters (like UTF-8 or ISO-8859-1), other charsets are parsed on a single core.
+ */
+public class ParallelCsvParser {
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+
+    private final Path file;
+    private final Charset charset;
+    private char separator = ',';
+    private char quote = '"';
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private long chunkSize = 16L * 1024 * 1024;
+    private boolean ordered = true;
+
+    /**
+     * @param file    the file to parse
+     * @param charset the charset of the file
+     */
+    public ParallelCsvParser(@NotNull Path file, @NotNull Charset charset) {
+        this.file = file;
+        this.charset = charset;
+    }
+
+    /**
+     * Sets the character separating fields (default: ',')
+     *
+     * @param separator the separator
+     * @return the ParallelCsvParser instance
+     */
+    public ParallelCsvParser separator(char separator) {
+        this.separator = separator;
+        return this;
+    }
+
+    /**
+     * Sets the character quoting fields (default: '"')
+     *
+     * @param quote the quote
+     * @return the ParallelCsvParser instance
+     */
+    public ParallelCsvParser quote(char quote) {
+        this.quote = quote;
+        return this;
+    }
+
+    /**
+     * Sets the amount of threads parsing at the same time (default: available processors)
+     *
+     * @param parallelism the amount of threads
+     * @return the ParallelCsvParser instance
+     */
+    public ParallelCsvParser parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1 but was " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the approximate size of the byte range parsed as one task (default: 16mb)
+     *
+     * @param chunkSize the size in bytes
+     * @return the ParallelCsvParser instance
+     */
+    public ParallelCsvParser chunkSize(long chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1 but was " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Sets if rows are passed on in the order of the file (default: true). Ordered rows are passed to the action on the calling thread one chunk at a time,
+     * unordered rows are passed on right away from the parsing threads
+     *
+     * @param ordered true to keep the order of the file
+     * @return the ParallelCsvParser instance
+     */
+    public ParallelCsvParser ordered(boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    /**
+     * Parses the file, passing every row to the action
+     *
+     * @param action the action to run for every row, has to be thread safe if not {@link #ordered(boolean)}
+     * @throws IOException if the file could not be read
+     */
+    public void forEach(@NotNull Consumer<String[]> action) throws IOException {
+        if (!ordered) {
+            forEachRow(cursor -> {
+                String[] row = new String[cursor.fieldCount()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = cursor.getString(i);
+                }
+                action.accept(row);
+            });
+            return;
+        }
+
+        List<long[]> chunks = split();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            //limits how many parsed chunks wait in memory for their turn
+            Deque<ForkJoinTask<List<String[]>>> inFlight = new ArrayDeque<>();
+            int next = 0;
+            while (next < chunks.size() || !inFlight.isEmpty()) {
+                while (next < chunks.size() && inFlight.size() < parallelism * 2) {
+                    long[] chunk = chunks.get(next++);
+                    inFlight.add(pool.submit(() -> {
+                        List<String[]> rows = new ArrayList<>();
+                        parseChunk(channel, chunk, cursor -> {
+                            String[] row = new String[cursor.fieldCount()];
+                            for (int i = 0; i < row.length; i++) {
+                                row[i] = cursor.getString(i);
+                            }
+                            rows.add(row);
+                        });
+                        return rows;
+                    }));
+                }
+                inFlight.poll().join().forEach(action);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses the file without creating any objects per row, the action gets the cursor of the chunk it was parsed from positioned at the row.
+     * Rows are passed on right away from the parsing threads in no particular order regardless of {@link #ordered(boolean)}
+     *
+     * @param action the action to run for every row, has to be thread safe and may only use the cursor during the call
+     * @throws IOException if the file could not be read
+     */
+    public void forEachRow(@NotNull Consumer<CsvCursor> action) throws IOException {
+        List<long[]> chunks = split();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks.size());
+            for (long[] chunk : chunks) {
+                tasks.add(pool.submit(() -> parseChunk(channel, chunk, action)));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses the whole file
+     *
+     * @return all rows in the order of the file
+     * @throws IOException if the file could not be read
+     */
+    public List<String[]> parseAll() throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        boolean wasOrdered = ordered;
+        ordered = true;
+        try {
+            forEach(rows::add);
+        } finally {
+            ordered = wasOrdered;
+        }
+        return rows;
+    }
+
+    /**
+     * Splits the file into byte ranges starting at record boundaries
+     *
+     * @return the ranges as start (inclusive) and end (exclusive) byte offsets
+     * @throws IOException if the file could not be read
+     */
+    public List<long[]> split() throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (!isSplittable() || size <= chunkSize) {
+                chunks.add(new long[]{0, size});
+                return chunks;
+            }
+
+            int count = (int) Math.min(Integer.MAX_VALUE, (size + chunkSize - 1) / chunkSize);
+            byte quoteByte = (byte) quote;
+
+            //first pass, quotes per raw range
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            long[] quoteCounts = new long[count];
+            try {
+                List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    int index = i;
+                    tasks.add(pool.submit(() -> {
+                        long start = index * chunkSize;
+                        quoteCounts[index] = countQuotes(channel, start, Math.min(size, start + chunkSize), quoteByte);
+                    }));
+                }
+                for (ForkJoinTask<?> task : tasks) {
+                    task.join();
+                }
+
+                //second pass, move every raw start to the next line break outside of quotes
+                long[] boundaries = new long[count + 1];
+                boundaries[count] = size;
+                List<ForkJoinTask<?>> boundaryTasks = new ArrayList<>(count);
+                long quotesBefore = 0;
+                for (int i = 0; i < count; i++) {
+                    int index = i;
+                    boolean insideQuotes = (quotesBefore & 1) == 1;
+                    quotesBefore += quoteCounts[i];
+                    if (index == 0) continue;
+                    boundaryTasks.add(pool.submit(() -> {
+                        boundaries[index] = nextRecordStart(channel, index * chunkSize, size, quoteByte, insideQuotes);
+                    }));
+                }
+                for (ForkJoinTask<?> task : boundaryTasks) {
+                    task.join();
+                }
+
+                long start = 0;
+                for (int i = 1; i <= count; i++) {
+                    long end = Math.max(start, boundaries[i]);
+                    if (end > start) {
+                        chunks.add(new long[]{start, end});
+                    }
+                    start = end;
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        return chunks;
+    }
+
+    private void parseChunk(FileChannel channel, long[] chunk, Consumer<CsvCursor> action) {
+        InputStreamReader reader = new InputStreamReader(new RangeInputStream(channel, chunk[0], chunk[1]), charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE));
+        CsvCursor cursor = new CsvCursor(reader, separator, quote);
+        while (cursor.next()) {
+            action.accept(cursor);
+        }
+    }
+
+    /**
+     * @return true if the quote and '\n' are encoded as single bytes equal to their char values
+     */
+    private boolean isSplittable() {
+        if (quote > 0x7F || !charset.canEncode()) return false;
+        try {
+            ByteBuffer encoded = charset.newEncoder().encode(CharBuffer.wrap(new char[]{quote, '\n'}));
+            return encoded.remaining() == 2 && encoded.get(0) == quote && encoded.get(1) == '\n';
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+
+    private static long countQuotes(FileChannel channel, long start, long end, byte quote) {
+        long count = 0;
+        try {
+            for (long position = start; position < end; position += MAP_WINDOW) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, end - position));
+                for (int i = 0, limit = window.limit(); i < limit; i++) {
+                    if (window.get(i) == quote) count++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+
+    /**
+     * Finds the offset right after the first '\n' outside of quotes at or after the position
+     *
+     * @param insideQuotes if the position is inside a quoted field
+     * @return the offset of the next record or the size of the file if there is none
+     */
+    private static long nextRecordStart(FileChannel channel, long position, long size, byte quote, boolean insideQuotes) {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try {
+            while (position < size) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) break;
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer.get(i);
+                    if (b == quote) {
+                        insideQuotes = !insideQuotes;
+                    } else if (b == '\n' && !insideQuotes) {
+                        return position + i + 1;
+                    }
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return size;
+    }
+
+    /**
+     * Reads a byte range of a shared channel through positional reads
+     */
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        private RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (position >= end) return -1;
+            int read = channel.read(ByteBuffer.wrap(bytes, offset, (int) Math.min(length, end - position)), position);
+            if (read < 0) return -1;
+            position += read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.wonkglorg.util.directorylistener;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DirectorySnapshotTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRescanFindsMissedChanges() throws IOException {
+        Path kept = Files.writeString(directory.resolve("kept.txt"), "kept");
+        Path changed = Files.writeString(directory.resolve("changed.txt"), "before");
+        Path deleted = Files.writeString(directory.resolve("deleted.txt"), "deleted");
+        DirectorySnapshot snapshot = new DirectorySnapshot(directory);
+        DirectorySnapshot.SnapshotDiff first = snapshot.rescan();
+        assertEquals(3, first.created().size());
+        assertTrue(first.modified().isEmpty());
+
+        Files.writeString(changed, "after, and longer");
+        Files.delete(deleted);
+        Path created = Files.writeString(directory.resolve("created.txt"), "created");
+
+        DirectorySnapshot.SnapshotDiff diff = snapshot.rescan();
+        assertEquals(List.of(created), diff.created());
+        assertEquals(List.of(changed), diff.modified());
+        assertEquals(List.of(deleted), diff.deleted());
+        assertNull(snapshot.get(deleted));
+        assertEquals(Files.size(kept), snapshot.get(kept).getFileSize());
+
+        assertTrue(snapshot.rescan().isEmpty());
+    }
+
+    @Test
+    void testSameSizeWithNewTimeIsModified() throws IOException {
+        Path file = Files.writeString(directory.resolve("file.txt"), "same");
+        DirectorySnapshot snapshot = new DirectorySnapshot(directory);
+        snapshot.rescan();
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() - 60000));
+        assertEquals(List.of(file), snapshot.rescan().modified());
+    }
+}
@@ -0,0 +1,43 @@
+package com.wonkglorg.util.directorylistener;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FileEventTest {
+    private static final Path FILE = Path.of("file.txt");
+
+    @Test
+    void testMerge() {
+        FileEvent create = new FileEvent(FILE, ENTRY_CREATE);
+        FileEvent modify = new FileEvent(FILE, ENTRY_MODIFY);
+        FileEvent delete = new FileEvent(FILE, ENTRY_DELETE);
+
+        assertEquals(modify, FileEvent.merge(null, modify));
+        assertEquals(create, FileEvent.merge(create, modify));
+        assertNull(FileEvent.merge(create, delete));
+        assertEquals(modify, FileEvent.merge(delete, create));
+        assertEquals(delete, FileEvent.merge(modify, delete));
+        assertEquals(modify, FileEvent.merge(modify, modify));
+    }
+
+    @Test
+    void testMergeSequence() {
+        FileEvent pending = null;
+        pending = FileEvent.merge(pending, new FileEvent(FILE, ENTRY_CREATE));
+        pending = FileEvent.merge(pending, new FileEvent(FILE, ENTRY_MODIFY));
+        pending = FileEvent.merge(pending, new FileEvent(FILE, ENTRY_MODIFY));
+        assertEquals(ENTRY_CREATE, pending.kind());
+
+        pending = FileEvent.merge(new FileEvent(FILE, ENTRY_MODIFY), new FileEvent(FILE, ENTRY_DELETE));
+        pending = FileEvent.merge(pending, new FileEvent(FILE, ENTRY_CREATE));
+        pending = FileEvent.merge(pending, new FileEvent(FILE, ENTRY_MODIFY));
+        assertEquals(ENTRY_MODIFY, pending.kind());
+    }
+}
@@ -0,0 +1,56 @@
+package com.wonkglorg.util.directorylistener;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PathOrderedExecutorTest {
+
+    @Test
+    void testTasksOfOnePathRunInOrder() throws InterruptedException {
+        PathOrderedExecutor executor = new PathOrderedExecutor(4);
+        Map<Path, List<Integer>> results = new HashMap<>();
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            Path path = Path.of("directory", "file" + i);
+            paths.add(path);
+            results.put(path, Collections.synchronizedList(new ArrayList<>()));
+        }
+
+        for (int i = 0; i < 500; i++) {
+            for (Path path : paths) {
+                int value = i;
+                executor.execute(path, () -> results.get(path).add(value));
+            }
+        }
+        executor.shutdown(10, TimeUnit.SECONDS);
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            expected.add(i);
+        }
+        for (Path path : paths) {
+            assertEquals(expected, results.get(path));
+        }
+    }
+
+    @Test
+    void testLanes() throws InterruptedException {
+        PathOrderedExecutor executor = new PathOrderedExecutor(3);
+        Path path = Path.of("file.txt");
+        assertEquals(3, executor.getLaneCount());
+        assertEquals(executor.laneOf(path), executor.laneOf(Path.of("file.txt")));
+        executor.shutdown(10, TimeUnit.SECONDS);
+
+        assertThrows(IllegalArgumentException.class, () -> new PathOrderedExecutor(0));
+    }
+}
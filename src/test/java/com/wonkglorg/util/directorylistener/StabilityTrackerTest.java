@@ -0,0 +1,88 @@
+package com.wonkglorg.util.directorylistener;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StabilityTrackerTest {
+    private static final Path FILE = Path.of("file.txt");
+
+    private final Map<Path, FileStatus> statuses = new HashMap<>();
+    private final List<Path> stable = new ArrayList<>();
+    //10 ticks of 10ms each
+    private final StabilityTracker tracker = new StabilityTracker(100, statuses::get, (file, status) -> stable.add(file));
+
+    @Test
+    void testStableAfterQuietPeriod() {
+        statuses.put(FILE, new FileStatus(1, 1));
+        assertEquals(10, tracker.getTickMillis());
+        assertTrue(tracker.track(FILE, new FileStatus(1, 1)));
+        assertFalse(tracker.track(FILE, new FileStatus(1, 1)));
+
+        advance(9);
+        assertTrue(stable.isEmpty());
+        advance(1);
+        assertEquals(List.of(FILE), stable);
+        assertFalse(tracker.isTracked(FILE));
+    }
+
+    @Test
+    void testTouchRestartsQuietPeriod() {
+        statuses.put(FILE, new FileStatus(1, 1));
+        tracker.track(FILE, new FileStatus(1, 1));
+        advance(5);
+        assertTrue(tracker.touch(FILE));
+
+        advance(9);
+        assertTrue(stable.isEmpty());
+        advance(1);
+        assertEquals(List.of(FILE), stable);
+    }
+
+    @Test
+    void testChangedStatusIsCheckedAgain() {
+        statuses.put(FILE, new FileStatus(2, 2));
+        tracker.track(FILE, new FileStatus(1, 1));
+
+        advance(10);
+        assertTrue(stable.isEmpty());
+        assertTrue(tracker.isTracked(FILE));
+        advance(10);
+        assertEquals(List.of(FILE), stable);
+    }
+
+    @Test
+    void testDeletedFileIsDropped() {
+        tracker.track(FILE, new FileStatus(1, 1));
+        advance(10);
+        assertTrue(stable.isEmpty());
+        assertEquals(0, tracker.size());
+    }
+
+    @Test
+    void testManyFilesSpreadOverTheWheel() {
+        for (int i = 0; i < 200; i++) {
+            Path file = Path.of("file" + i);
+            statuses.put(file, new FileStatus(i, i));
+            tracker.track(file, new FileStatus(i, i));
+            advance(1);
+        }
+        advance(10);
+        assertEquals(200, stable.size());
+        assertEquals(0, tracker.size());
+    }
+
+    private void advance(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            tracker.advance();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.wonkglorg.util.directorylistener;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WatcherCheckpointTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testDiffAgainstSavedCheckpoint() throws IOException {
+        DirectorySnapshot first = new DirectorySnapshot(directory.resolve("first"));
+        DirectorySnapshot second = new DirectorySnapshot(directory.resolve("second"));
+        Path kept = first.getDirectory().resolve("kept.txt");
+        Path changed = first.getDirectory().resolve("changed.txt");
+        Path deleted = second.getDirectory().resolve("deleted.txt");
+        first.update(kept, new FileStatus(1, 100));
+        first.update(changed, new FileStatus(2, 200));
+        second.update(deleted, new FileStatus(3, 300));
+
+        WatcherCheckpoint checkpoint = new WatcherCheckpoint(directory.resolve("checkpoint").resolve("watcher.bin"));
+        assertFalse(checkpoint.exists());
+        assertEquals(3, checkpoint.diff(List.of(first, second)).created().size());
+        checkpoint.save(List.of(first, second));
+        assertTrue(checkpoint.exists());
+        assertTrue(checkpoint.diff(List.of(first, second)).isEmpty());
+
+        Path created = second.getDirectory().resolve("created.txt");
+        first.update(changed, new FileStatus(2, 201));
+        second.remove(deleted);
+        second.update(created, new FileStatus(4, 400));
+
+        DirectorySnapshot.SnapshotDiff diff = checkpoint.diff(List.of(first, second));
+        assertEquals(List.of(created), diff.created());
+        assertEquals(List.of(changed), diff.modified());
+        assertEquals(List.of(deleted), diff.deleted());
+    }
+
+    @Test
+    void testUnwatchedDirectoriesAreNotDeleted() throws IOException {
+        DirectorySnapshot first = new DirectorySnapshot(directory.resolve("first"));
+        DirectorySnapshot second = new DirectorySnapshot(directory.resolve("second"));
+        first.update(first.getDirectory().resolve("a.txt"), new FileStatus(1, 1));
+        second.update(second.getDirectory().resolve("b.txt"), new FileStatus(1, 1));
+        WatcherCheckpoint checkpoint = new WatcherCheckpoint(directory.resolve("watcher.bin"));
+        checkpoint.save(List.of(first, second));
+
+        assertTrue(checkpoint.diff(List.of(first)).isEmpty());
+    }
+
+    @Test
+    void testManyRecordsAndLongPaths() throws IOException {
+        DirectorySnapshot snapshot = new DirectorySnapshot(directory.resolve("many"));
+        String longName = "x".repeat(2000);
+        for (int i = 0; i < 5000; i++) {
+            snapshot.update(snapshot.getDirectory().resolve(i + longName), new FileStatus(i, i));
+        }
+        WatcherCheckpoint checkpoint = new WatcherCheckpoint(directory.resolve("watcher.bin"));
+        checkpoint.save(List.of(snapshot));
+        assertTrue(checkpoint.diff(List.of(snapshot)).isEmpty());
+
+        snapshot.update(snapshot.getDirectory().resolve(4999 + longName), new FileStatus(0, 0));
+        assertEquals(1, checkpoint.diff(List.of(snapshot)).modified().size());
+    }
+
+    @Test
+    void testInvalidCheckpoint() throws IOException {
+        Path file = Files.writeString(directory.resolve("watcher.bin"), "not a checkpoint file");
+        WatcherCheckpoint checkpoint = new WatcherCheckpoint(file);
+        assertThrows(IOException.class, () -> checkpoint.diff(List.of(new DirectorySnapshot(directory))));
+    }
+}
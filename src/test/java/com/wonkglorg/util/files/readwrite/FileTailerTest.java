@@ -0,0 +1,62 @@
+package com.wonkglorg.util.files.readwrite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileTailerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testPartialLinesAreHeldBack() throws IOException {
+        Path file = Files.writeString(directory.resolve("log.txt"), "old\n");
+        try (FileTailer tailer = new FileTailer(file, StandardCharsets.UTF_8, false)) {
+            assertEquals(List.of(), tailer.poll());
+            append(file, "first\nsec");
+            assertEquals(List.of("first"), tailer.poll());
+            append(file, "ond\r\n");
+            assertEquals(List.of("second"), tailer.poll());
+        }
+    }
+
+    @Test
+    void testRotationFinishesOldFileAndCountsItsLastLine() throws IOException {
+        Path file = Files.writeString(directory.resolve("log.txt"), "a\n");
+        try (FileTailer tailer = new FileTailer(file, StandardCharsets.UTF_8, true)) {
+            assertEquals(List.of("a"), tailer.poll());
+            append(file, "b\nunfinished");
+            Files.move(file, directory.resolve("log.txt.1"));
+            Files.writeString(file, "new\n");
+
+            List<String> lines = new ArrayList<>();
+            int count = tailer.poll(lines::add);
+            assertEquals(List.of("b", "unfinished", "new"), lines);
+            assertEquals(lines.size(), count);
+        }
+    }
+
+    @Test
+    void testTruncationStartsOver() throws IOException {
+        Path file = Files.writeString(directory.resolve("log.txt"), "one\ntwo\n");
+        try (FileTailer tailer = new FileTailer(file, StandardCharsets.UTF_8, true)) {
+            assertEquals(List.of("one", "two"), tailer.poll());
+            Files.writeString(file, "x\n");
+            assertEquals(List.of("x"), tailer.poll());
+            assertEquals(2, tailer.getOffset());
+        }
+    }
+
+    private static void append(Path file, String text) throws IOException {
+        Files.writeString(file, text, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,86 @@
+package com.wonkglorg.util.files.readwrite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MappedLineReaderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testMatchesSequentialReading() throws IOException {
+        for (String lineBreak : new String[]{"\n", "\r\n"}) {
+            for (boolean trailing : new boolean[]{true, false}) {
+                Path file = Files.writeString(directory.resolve("lines.txt"), generate(lineBreak, trailing));
+                assertEquals(Files.readAllLines(file, StandardCharsets.UTF_8), readAll(file, 0, Long.MAX_VALUE));
+            }
+        }
+    }
+
+    @Test
+    void testLineAlignedRanges() throws IOException {
+        Path file = Files.writeString(directory.resolve("ranges.txt"), generate("\r\n", false));
+        byte[] bytes = Files.readAllBytes(file);
+
+        //cut after every 997th line break, the ranges read one after another give the whole file
+        List<String> lines = new ArrayList<>();
+        long start = 0;
+        int breaks = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n' && ++breaks % 997 == 0) {
+                lines.addAll(readAll(file, start, i + 1));
+                start = i + 1;
+            }
+        }
+        lines.addAll(readAll(file, start, bytes.length));
+        assertEquals(Files.readAllLines(file, StandardCharsets.UTF_8), lines);
+    }
+
+    @Test
+    void testSmallAndEmptyFiles() throws IOException {
+        Path empty = Files.writeString(directory.resolve("empty.txt"), "");
+        assertEquals(List.of(), readAll(empty, 0, Long.MAX_VALUE));
+
+        Path small = Files.writeString(directory.resolve("small.txt"), "\nonly\r\n\r\nlast");
+        try (MappedLineReader reader = new MappedLineReader(small, StandardCharsets.UTF_8)) {
+            assertEquals("", reader.nextLine().toString());
+            assertEquals("only", reader.nextLine().toString());
+            assertEquals("", reader.nextLine().toString());
+            assertEquals("last", reader.nextLine().toString());
+            assertNull(reader.nextLine());
+            assertEquals(4, reader.getLineNumber());
+        }
+    }
+
+    /**
+     * Lines of varying length with multi byte characters and one line longer than the initial char buffer
+     */
+    private static String generate(String lineBreak, boolean trailing) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            if (i > 0) builder.append(lineBreak);
+            builder.append(i).append(" é€😀 ").append("x".repeat(i % 131));
+            if (i == 5000) builder.append("y".repeat(200_000));
+        }
+        if (trailing) builder.append(lineBreak);
+        return builder.toString();
+    }
+
+    private static List<String> readAll(Path file, long start, long end) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (MappedLineReader reader = new MappedLineReader(file, StandardCharsets.UTF_8, start, end)) {
+            reader.forEachLine(line -> lines.add(line.toString()));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,94 @@
+package com.wonkglorg.util.files.readwrite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelLineReaderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testLinesAcrossRangeBoundaries() throws IOException {
+        Path file = Files.writeString(directory.resolve("large.txt"), generate(60000, "\n", true));
+        List<long[]> ranges = ParallelLineReader.split(file, StandardCharsets.UTF_8, 8);
+        assertTrue(ranges.size() > 1);
+        assertAligned(file, ranges);
+        assertMatchesSequential(file);
+    }
+
+    @Test
+    void testCrlfLineEndings() throws IOException {
+        Path file = Files.writeString(directory.resolve("crlf.txt"), generate(60000, "\r\n", true));
+        assertTrue(ParallelLineReader.split(file, StandardCharsets.UTF_8, 8).size() > 1);
+        assertMatchesSequential(file);
+    }
+
+    @Test
+    void testNoTrailingNewline() throws IOException {
+        Path file = Files.writeString(directory.resolve("unterminated.txt"), generate(60000, "\n", false));
+        assertTrue(ParallelLineReader.split(file, StandardCharsets.UTF_8, 8).size() > 1);
+        assertMatchesSequential(file);
+    }
+
+    @Test
+    void testFileSmallerThanOneRange() throws IOException {
+        Path file = Files.writeString(directory.resolve("small.txt"), "first\r\nsecond\n\nlast");
+        assertEquals(1, ParallelLineReader.split(file, StandardCharsets.UTF_8, 8).size());
+        assertMatchesSequential(file);
+
+        Path empty = Files.writeString(directory.resolve("empty.txt"), "");
+        assertMatchesSequential(empty);
+    }
+
+    /**
+     * Lines of varying length with multi byte characters so range boundaries fall anywhere inside lines and characters
+     */
+    private static String generate(int lines, String lineBreak, boolean trailing) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            if (i > 0) builder.append(lineBreak);
+            builder.append(i).append(" é€ ").append("x".repeat(i % 97));
+        }
+        if (trailing) builder.append(lineBreak);
+        return builder.toString();
+    }
+
+    private static void assertAligned(Path file, List<long[]> ranges) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        long expectedStart = 0;
+        for (long[] range : ranges) {
+            assertEquals(expectedStart, range[0]);
+            assertTrue(range[0] == 0 || bytes[(int) range[0] - 1] == '\n');
+            expectedStart = range[1];
+        }
+        assertEquals(bytes.length, expectedStart);
+    }
+
+    private static void assertMatchesSequential(Path file) throws IOException {
+        List<String> expected = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+        try (Stream<String> lines = ParallelLineReader.lines(file, StandardCharsets.UTF_8)) {
+            assertEquals(expected, lines.parallel().collect(Collectors.toList()));
+        }
+
+        List<String> unordered = Collections.synchronizedList(new ArrayList<>());
+        ParallelLineReader.forEachLine(file, StandardCharsets.UTF_8, 4, line -> unordered.add(line.toString()));
+        List<String> sortedExpected = new ArrayList<>(expected);
+        sortedExpected.sort(null);
+        unordered.sort(null);
+        assertEquals(sortedExpected, unordered);
+    }
+}
@@ -0,0 +1,84 @@
+package com.wonkglorg.util.files.readwrite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TxtFileAppenderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testCloseDuringPeriodicSyncKeepsAllLines() throws IOException {
+        for (int round = 0; round < 50; round++) {
+            Path file = directory.resolve("periodic" + round + ".txt");
+            //syncs every millisecond so close regularly lands while one is writing or forcing
+            TxtFileAppender appender = new TxtFileAppender(file, StandardCharsets.UTF_8, 1024 * 1024, TxtFileAppender.SyncPolicy.PERIODIC, 1);
+            List<Exception> exceptions = new ArrayList<>();
+            appender.onException(exceptions::add);
+            long end = System.nanoTime() + 2_000_000;
+            int lines = 0;
+            while (System.nanoTime() < end || lines < 100) {
+                appender.append("line " + lines++);
+            }
+            appender.close();
+
+            assertTrue(exceptions.isEmpty(), "Periodic sync failed: " + exceptions);
+            List<String> written = Files.readAllLines(file);
+            assertEquals(lines, written.size());
+            assertEquals("line " + (lines - 1), written.get(lines - 1));
+        }
+    }
+
+    @Test
+    void testConcurrentAppendsKeepLinesWhole() throws Exception {
+        Path file = directory.resolve("concurrent.txt");
+        int threadCount = 8;
+        int linesPerThread = 2000;
+        //a small buffer forces many batches while other threads append
+        try (TxtFileAppender appender = new TxtFileAppender(file, StandardCharsets.UTF_8, 256, TxtFileAppender.SyncPolicy.NONE, 0)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                int thread = t;
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < linesPerThread; i++) {
+                        appender.append("thread " + thread + " line " + i + " äöü");
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        List<String> written = Files.readAllLines(file);
+        assertEquals(threadCount * linesPerThread, written.size());
+        Set<String> unique = new HashSet<>(written);
+        assertEquals(written.size(), unique.size());
+        assertTrue(unique.contains("thread 7 line 1999 äöü"));
+    }
+
+    @Test
+    void testAppendAllInMultiByteCharset() throws IOException {
+        Path file = directory.resolve("utf16.txt");
+        Charset charset = StandardCharsets.UTF_16;
+        List<String> lines = List.of("first", "zweite Zeile ß", "😀 emoji", "");
+        try (TxtFileAppender appender = new TxtFileAppender(file, charset, 64, TxtFileAppender.SyncPolicy.PER_BATCH, 0)) {
+            appender.appendAll(lines);
+        }
+        assertEquals(lines, Files.readAllLines(file, charset));
+    }
+}
@@ -0,0 +1,61 @@
+package com.wonkglorg.util.files.scanner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DuplicateFinderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSameFileThroughLinksIsNotADuplicate() throws IOException {
+        Path original = Files.writeString(directory.resolve("original.txt"), "only copy");
+        Files.createLink(directory.resolve("hardlink.txt"), original);
+        Files.createSymbolicLink(directory.resolve("symlink.txt"), original);
+        Path nested = Files.createDirectory(directory.resolve("nested"));
+        Files.writeString(nested.resolve("other.txt"), "something else");
+
+        //the nested directory is also reached through the first search path
+        FileScanner.MultiResultScanner scanner = new FileScanner().searchPath(directory.toString(), nested.toString()).findMultiple();
+        assertTrue(new DuplicateFinder(scanner).find().isEmpty());
+    }
+
+    @Test
+    void testCopiesAreGroupedOnce() throws IOException {
+        Path first = Files.writeString(directory.resolve("a.txt"), "duplicate contents");
+        Path second = Files.writeString(directory.resolve("b.txt"), "duplicate contents");
+        Files.createLink(directory.resolve("a-link.txt"), first);
+        Files.writeString(directory.resolve("c.txt"), "different contents");
+
+        List<DuplicateFinder.DuplicateGroup> groups = new DuplicateFinder(new FileScanner().searchPath(directory.toString()).findMultiple()).find();
+        assertEquals(1, groups.size());
+        assertEquals(2, groups.get(0).files().size());
+        assertTrue(groups.get(0).files().contains(second));
+        assertEquals("duplicate contents".length(), groups.get(0).wastedBytes());
+    }
+
+    @Test
+    void testOnlyFullHashSeparatesFilesWithEqualEnds() throws IOException {
+        byte[] contents = new byte[4096];
+        Arrays.fill(contents, (byte) 'x');
+        Files.write(directory.resolve("same1.bin"), contents);
+        Files.write(directory.resolve("same2.bin"), contents);
+        contents[2048] = 'y';
+        Files.write(directory.resolve("middle.bin"), contents);
+
+        List<DuplicateFinder.DuplicateGroup> groups = new DuplicateFinder(new FileScanner().searchPath(directory.toString()).findMultiple())
+                .blockSize(16)
+                .find();
+        assertEquals(1, groups.size());
+        assertEquals(List.of(directory.resolve("same1.bin"), directory.resolve("same2.bin")), groups.get(0).files());
+    }
+}
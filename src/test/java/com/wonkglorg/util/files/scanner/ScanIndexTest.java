@@ -0,0 +1,71 @@
+package com.wonkglorg.util.files.scanner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScanIndexTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testEntryAddedWithinTimeGranuleIsFound() throws IOException {
+        Path tree = Files.createDirectory(directory.resolve("tree"));
+        Path index = directory.resolve("scan.index");
+        Files.writeString(tree.resolve("first.txt"), "first");
+        FileScanner.MultiResultScanner scanner = new FileScanner().searchPath(tree.toString()).include("*.txt").findMultiple();
+        assertEquals(1, scanner.findIncremental(index).added().size());
+
+        //a coarse time resolution leaves the directory's last modified time unchanged
+        FileTime listed = Files.getLastModifiedTime(tree);
+        Path second = Files.writeString(tree.resolve("second.txt"), "second");
+        Files.setLastModifiedTime(tree, listed);
+
+        IncrementalScanResult result = scanner.findIncremental(index);
+        assertEquals(List.of(second), result.added());
+        assertEquals(2, result.all().size());
+    }
+
+    @Test
+    void testUnchangedDirectoryIsReused() throws IOException {
+        Path tree = Files.createDirectory(directory.resolve("tree"));
+        Path index = directory.resolve("scan.index");
+        Path file = Files.writeString(tree.resolve("file.txt"), "contents");
+        Files.setLastModifiedTime(tree, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+        FileScanner.MultiResultScanner scanner = new FileScanner().searchPath(tree.toString()).include("*.txt").findMultiple();
+        scanner.findIncremental(index);
+
+        IncrementalScanResult result = scanner.findIncremental(index);
+        assertTrue(result.added().isEmpty());
+        assertTrue(result.changed().isEmpty());
+        assertEquals(List.of(file), result.all());
+    }
+
+    @Test
+    void testSizeRuleSeesCurrentSizeOfReusedFile() throws IOException {
+        Path tree = Files.createDirectory(directory.resolve("tree"));
+        Path index = directory.resolve("scan.index");
+        Path file = Files.writeString(tree.resolve("file.txt"), "small");
+        FileTime old = FileTime.from(Instant.now().minus(Duration.ofHours(1)));
+        Files.setLastModifiedTime(tree, old);
+        FileScanner.MultiResultScanner scanner = new FileScanner().searchPath(tree.toString()).size(10, Long.MAX_VALUE).findMultiple();
+        assertTrue(scanner.findIncremental(index).all().isEmpty());
+
+        Files.writeString(file, "large enough now");
+        Files.setLastModifiedTime(tree, old);
+
+        IncrementalScanResult result = scanner.findIncremental(index);
+        assertEquals(List.of(file), result.all());
+        assertEquals(List.of(file), result.changed());
+    }
+}
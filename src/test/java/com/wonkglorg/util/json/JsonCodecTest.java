@@ -0,0 +1,86 @@
+package com.wonkglorg.util.json;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonCodecTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testClassRoundTrip() {
+        JsonCodec<Point> codec = JsonUtil.codec(Point.class);
+        Point point = new Point();
+        point.x = 3;
+        point.label = "start";
+
+        String json = codec.toJsonString(point);
+        assertEquals("{\"x\":3,\"label\":\"start\"}", json);
+        assertEquals(point, codec.fromString(json));
+        assertEquals(point, codec.fromBytes(codec.toBytes(point)));
+        assertEquals(point, codec.fromStream(new ByteArrayInputStream(codec.toBytes(point))));
+
+        File file = directory.resolve("point.json").toFile();
+        codec.toFile(file, point);
+        assertEquals(point, codec.fromFile(file));
+
+        assertThrows(UncheckedIOException.class, () -> codec.fromString("{\"x\":\"not a number\"}"));
+    }
+
+    @Test
+    void testGenericRoundTrip() {
+        JsonCodec<Map<String, List<Integer>>> codec = JsonUtil.codec(new TypeReference<>() {
+        });
+        Map<String, List<Integer>> value = Map.of("values", List.of(1, 2, 3));
+
+        Map<String, List<Integer>> read = codec.fromString(codec.toJsonString(value));
+        assertEquals(value, read);
+        assertEquals(Integer.class, read.get("values").get(0).getClass());
+    }
+
+    @Test
+    void testCodecKeepsItsConfiguration() {
+        Point point = new Point();
+        JsonCodec<Point> before = JsonUtil.codec(Point.class);
+        try {
+            JsonUtil.configure(mapper -> mapper.enable(SerializationFeature.INDENT_OUTPUT));
+            JsonCodec<Point> after = JsonUtil.codec(Point.class);
+            assertNotSame(before, after);
+            assertFalse(before.toJsonString(point).contains("\n"));
+            assertTrue(after.toJsonString(point).contains("\n"));
+        } finally {
+            JsonUtil.configure(mapper -> mapper.disable(SerializationFeature.INDENT_OUTPUT));
+        }
+    }
+
+    public static class Point {
+        public int x;
+        public String label;
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Point other && x == other.x && Objects.equals(label, other.label);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(x, label);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.wonkglorg.util.json;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonUtilTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testArrayRoundTrip() {
+        String file = directory.resolve("values.json").toString();
+        assertTrue(JsonUtil.arrayToFile(file, List.of(1, 2, 3).iterator(), false));
+        assertFalse(JsonUtil.arrayToFile(file, List.of(4).iterator(), false));
+
+        try (Stream<Integer> values = JsonUtil.streamArray(file, Integer.class)) {
+            assertEquals(List.of(1, 2, 3), values.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void testStreamKeepsNullElements() throws IOException {
+        Path file = Files.writeString(directory.resolve("nulls.json"), "[\"a\", null, \"b\"]");
+        try (Stream<String> values = JsonUtil.streamArray(file.toString(), String.class)) {
+            assertEquals(Arrays.asList("a", null, "b"), values.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void testFailedArrayIsNotClosed() throws IOException {
+        Path file = directory.resolve("failed.json");
+        Iterator<Object> values = Arrays.<Object>asList("first", new Unserializable()).iterator();
+        assertThrows(RuntimeException.class, () -> JsonUtil.arrayToFile(file.toString(), values, true));
+
+        String contents = Files.readString(file).trim();
+        assertTrue(contents.startsWith("[\"first\""));
+        assertFalse(contents.endsWith("]"));
+        assertThrows(JsonProcessingException.class, () -> new ObjectMapper().readTree(contents));
+    }
+
+    @Test
+    void testFailingIteratorLeavesArrayOpen() throws IOException {
+        Path file = directory.resolve("iterator.json");
+        Iterator<String> values = new Iterator<>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public String next() {
+                if (index++ == 2) throw new UncheckedIOException(new IOException("source failed"));
+                return "value" + index;
+            }
+        };
+        assertThrows(RuntimeException.class, () -> JsonUtil.arrayToFile(file.toString(), values, true));
+        assertFalse(Files.readString(file).trim().endsWith("]"));
+    }
+
+    @Test
+    void testUnboundElementIsSkipped() throws IOException {
+        Path file = Files.writeString(directory.resolve("items.json"),
+                "[{\"a\":1,\"b\":\"oops\",\"nested\":{\"x\":[1,2]},\"c\":3},\"text\",{\"a\":2,\"b\":3}]");
+        try (JsonArrayReader<Item> reader = JsonUtil.readArray(file.toString(), Item.class)) {
+            assertThrows(UncheckedIOException.class, reader::next);
+            assertTrue(reader.hasNext());
+            assertThrows(UncheckedIOException.class, reader::next);
+            Item item = reader.next();
+            assertEquals(2, item.a);
+            assertEquals(3, item.b);
+            assertFalse(reader.hasNext());
+            assertEquals(3, reader.getCount());
+        }
+    }
+
+    @Test
+    void testMalformedDocumentEndsReader() throws IOException {
+        Path file = Files.writeString(directory.resolve("broken.json"), "[{\"a\":1,\"b\":\"oops\", oops}, {\"a\":2,\"b\":3}]");
+        try (JsonArrayReader<Item> reader = JsonUtil.readArray(file.toString(), Item.class)) {
+            int failures = 0;
+            while (reader.hasNext()) {
+                try {
+                    reader.next();
+                } catch (UncheckedIOException e) {
+                    failures++;
+                }
+            }
+            assertEquals(1, failures);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void testConfigureAppliesToNewCalls() {
+        Item item = new Item();
+        assertEquals("{\"a\":0,\"b\":0}", JsonUtil.codec(Item.class).toJsonString(item));
+        try {
+            JsonUtil.configure(mapper -> mapper.enable(SerializationFeature.INDENT_OUTPUT));
+            assertTrue(JsonUtil.toJsonString(Map.of("a", 1)).contains("\n"));
+            assertTrue(JsonUtil.codec(Item.class).toJsonString(item).contains("\n"));
+
+            //a copy that is changed must not affect the shared configuration
+            JsonUtil.getObjectMapper().disable(SerializationFeature.INDENT_OUTPUT);
+            assertTrue(JsonUtil.toJsonString(Map.of("a", 1)).contains("\n"));
+        } finally {
+            JsonUtil.configure(mapper -> mapper.disable(SerializationFeature.INDENT_OUTPUT));
+        }
+        assertEquals("{\"a\":1}", JsonUtil.toJsonString(Map.of("a", 1)));
+    }
+
+    public static class Item {
+        public int a;
+        public int b;
+    }
+
+    private static class Unserializable {
+        public Object getSelf() {
+            throw new IllegalStateException("not serializable");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.wonkglorg.util.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvCursorTest {
+
+    @Test
+    void testParseLongMatchesLongParseLong() {
+        String[] values = {"0", "-0", "+5", "123", "007", "9223372036854775807", "-9223372036854775808", "9223372036854775808", "-9223372036854775809",
+                "99999999999999999999", "-", "+", "", " 1", "1 ", "1.0", "1e3", "0x10", "--1", "1-"};
+        CsvCursor cursor = row(values);
+        for (int i = 0; i < values.length; i++) {
+            int index = i;
+            assertEquals(parseOrNull(() -> Long.parseLong(values[index])), parseOrNull(() -> cursor.parseLong(index)), values[index]);
+        }
+    }
+
+    @Test
+    void testParseIntRange() {
+        CsvCursor cursor = row("2147483647", "-2147483648", "2147483648");
+        assertEquals(Integer.MAX_VALUE, cursor.parseInt(0));
+        assertEquals(Integer.MIN_VALUE, cursor.parseInt(1));
+        assertThrows(NumberFormatException.class, () -> cursor.parseInt(2));
+    }
+
+    @Test
+    void testParseDoubleMatchesDoubleParseDouble() {
+        String[] values = {"0", "-0", "0.0", "-0.0", "1.5", "-1.5", "+2.25", ".5", "5.", ".", "-.", "+", "-", "", " 1.5", "1.5 ", "0.1", "1e22", "1e23",
+                "1e-22", "1e-23", "9e22", "123456789012345", "1234567890123456", "123456789012345678", "0.1234567890123456789", "9007199254740993",
+                "00000000000000000001.5", "123456789012345e10", "1.7976931348623157e308", "4.9e-324", "1e400", "-1e400", "1e-400", "1e", "1e+", "1e-",
+                "1E5", "1.5e+3", "NaN", "Infinity", "-Infinity", "1.5d", "0x1p3", "1_000", "1.2.3", "1e5.5"};
+        CsvCursor cursor = row(values);
+        for (int i = 0; i < values.length; i++) {
+            int index = i;
+            assertEquals(parseOrNull(() -> Double.parseDouble(values[index])), parseOrNull(() -> cursor.parseDouble(index)), values[index]);
+        }
+    }
+
+    /**
+     * Reads the values as the fields of a single row
+     */
+    private static CsvCursor row(String... values) {
+        CsvCursor cursor = new CsvCursor(new StringReader(String.join(";", values) + "\n"), ';', '"');
+        assertTrue(cursor.next());
+        assertEquals(values.length, cursor.fieldCount());
+        return cursor;
+    }
+
+    private static Object parseOrNull(Supplier<Object> supplier) {
+        try {
+            return supplier.get();
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.wonkglorg.util.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CsvMapperTest {
+    record Person(String name, int age, Double score) {
+    }
+
+    static class Item {
+        String name;
+        long count;
+        boolean active;
+        String note;
+    }
+
+    @Test
+    void testShortRowsMapMissingColumnsAsEmpty() {
+        String csv = "name,age,score\nAda,36,1.5\nBob,41\nEve\n";
+        List<Person> people = new ArrayList<>();
+        CsvMapper.of(Person.class).forEach(new CsvCursor(new StringReader(csv)), people::add);
+
+        assertEquals(List.of(new Person("Ada", 36, 1.5), new Person("Bob", 41, null), new Person("Eve", 0, null)), people);
+    }
+
+    @Test
+    void testShortRowsKeepDefaultsOfClassFields() {
+        String csv = "name,count,active,note\nscrew,12,yes,loose\nnail\n";
+        List<Item> items = new ArrayList<>();
+        CsvMapper.of(Item.class).forEach(new CsvCursor(new StringReader(csv)), items::add);
+
+        assertEquals(2, items.size());
+        assertEquals(12, items.get(0).count);
+        assertEquals("nail", items.get(1).name);
+        assertEquals(0, items.get(1).count);
+        assertFalse(items.get(1).active);
+        assertNull(items.get(1).note);
+    }
+}
@@ -0,0 +1,54 @@
+package com.wonkglorg.util.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvParserTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testParseCsvSplitsLikeStringSplit() throws IOException {
+        String[] lines = {"a,b,,", "", "\"x,y\",2", "1|2|3", "p.q"};
+        Path file = Files.writeString(directory.resolve("split.csv"), String.join("\n", lines) + "\n");
+
+        for (String separator : new String[]{",", "\\|", "|", ".", ",|\\|"}) {
+            List<List<String>> expected = new ArrayList<>();
+            for (String line : lines) {
+                expected.add(Arrays.asList(line.split(separator)));
+            }
+            assertEquals(expected, toLists(CsvParser.parseCSV(file.toString(), separator)), separator);
+        }
+    }
+
+    @Test
+    void testReadCsvHandlesQuotes() throws IOException {
+        Path file = Files.writeString(directory.resolve("quoted.csv"), "a,b,,\n\n\"x,y\",\"multi\nline\"\r\n");
+        assertEquals(List.of(List.of("a", "b", "", ""), List.of("x,y", "multi\nline")), toLists(CsvParser.readCSV(file.toString(), ',')));
+    }
+
+    @Test
+    void testWriteAndReadBack() throws IOException {
+        Path file = directory.resolve("written.csv");
+        List<String[]> rows = List.of(new String[]{"plain", "with,comma", "with \"quote\""}, new String[]{"line\nbreak", ""});
+        CsvParser.writeCSV(file.toString(), ',', rows);
+        assertEquals(toLists(rows), toLists(CsvParser.readCSV(file.toString(), ',')));
+    }
+
+    private static List<List<String>> toLists(List<String[]> rows) {
+        List<List<String>> lists = new ArrayList<>(rows.size());
+        for (String[] row : rows) {
+            lists.add(Arrays.asList(row));
+        }
+        return lists;
+    }
+}
@@ -0,0 +1,45 @@
+package com.wonkglorg.util.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvReaderTest {
+
+    @Test
+    void testEscapedQuotes() {
+        assertEquals(List.of(List.of("say \"hi\"", "\"", "")), read("\"say \"\"hi\"\"\",\"\"\"\",\"\"\n"));
+    }
+
+    @Test
+    void testLineBreakInQuotedField() {
+        assertEquals(List.of(List.of("1", "first\nsecond", "x"), List.of("2", "a,b", "y")), read("1,\"first\nsecond\",x\n2,\"a,b\",y\n"));
+    }
+
+    @Test
+    void testCrlfLineEndings() {
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "line\r\nbreak"), List.of("d", "")), read("a,b\r\nc,\"line\r\nbreak\"\r\nd,\r\n"));
+    }
+
+    @Test
+    void testTrailingEmptyFieldsAndBlankLines() {
+        assertEquals(List.of(List.of("a", "", ""), List.of("b")), read("a,,\n\n\r\nb"));
+    }
+
+    @Test
+    void testCustomSeparatorAndQuote() {
+        CsvReader reader = new CsvReader(new StringReader("'a;b';c\n"), ';', '\'');
+        assertEquals(List.of("a;b", "c"), Arrays.asList(reader.next()));
+    }
+
+    private static List<List<String>> read(String csv) {
+        List<List<String>> rows = new ArrayList<>();
+        new CsvReader(new StringReader(csv)).forEachRemaining(row -> rows.add(Arrays.asList(row)));
+        return rows;
+    }
+}
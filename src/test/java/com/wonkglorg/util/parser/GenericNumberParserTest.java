@@ -0,0 +1,110 @@
+package com.wonkglorg.util.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GenericNumberParserTest {
+	@Test
+	void testSeparatorDetection() {
+		// Both separators, the last one is the decimal separator
+		assertEquals(1234.56, GenericNumberParser.parseDouble("1.234,56", Double.NaN), 0.0);
+		assertEquals(1234.56, GenericNumberParser.parseDouble("1,234.56", Double.NaN), 0.0);
+
+		// Repeated separators are grouping separators
+		assertEquals(1234567, GenericNumberParser.parseLong("1.234.567", -1));
+		assertEquals(1234567, GenericNumberParser.parseLong("1,234,567", -1));
+
+		// Single separators
+		assertEquals(1500, GenericNumberParser.parseLong("1,500", -1));
+		assertEquals(1.5, GenericNumberParser.parseDouble("1.500", Double.NaN), 0.0);
+		assertEquals(1.5, GenericNumberParser.parseDouble("1,5", Double.NaN), 0.0);
+		assertEquals(0.5, GenericNumberParser.parseDouble("0,500", Double.NaN), 0.0);
+
+		// Other grouping separators
+		assertEquals(1234.5, GenericNumberParser.parseDouble("1 234,5", Double.NaN), 0.0);
+		assertEquals(1234.5, GenericNumberParser.parseDouble("1'234.5", Double.NaN), 0.0);
+	}
+
+	@Test
+	void testForcedDecimalSeparator() {
+		assertEquals(1500, GenericNumberParser.parseDouble("1.500", ',', Double.NaN), 0.0);
+		assertEquals(1500, GenericNumberParser.parseDouble("1,500", '.', Double.NaN), 0.0);
+		assertEquals(-1, GenericNumberParser.parseDouble("1.5,3", '.', -1), 0.0);
+	}
+
+	@Test
+	void testParseNumberTypes() {
+		assertEquals(42, GenericNumberParser.parseNumber("42"));
+		assertEquals(2, GenericNumberParser.parseNumber("2.0"));
+		assertEquals(3000000000L, GenericNumberParser.parseNumber("3000000000"));
+		assertEquals(Long.MAX_VALUE, GenericNumberParser.parseNumber("9223372036854775807"));
+		assertEquals(Long.MIN_VALUE, GenericNumberParser.parseNumber("-9223372036854775808"));
+		assertEquals(Long.MIN_VALUE, GenericNumberParser.parseLong("-9223372036854775808", 0));
+		assertEquals(-9.223372036854775808E18, GenericNumberParser.parseDouble("-9223372036854775808", '.', 0), 0.0);
+		assertEquals(-922337203685477580.8, GenericNumberParser.parseDouble("-922337203685477580.8", '.', 0), 0.0);
+		assertEquals(1.5f, GenericNumberParser.parseNumber("1,5"));
+		assertEquals(-1.5, GenericNumberParser.parseNumber("-1.5"));
+	}
+
+	@Test
+	void testInvalidInput() {
+		assertNull(GenericNumberParser.parseNumber("12abc"));
+		assertNull(GenericNumberParser.parseNumber(""));
+		assertNull(GenericNumberParser.parseNumber("-"));
+		assertNull(GenericNumberParser.parseNumber("1..2"));
+		assertNull(GenericNumberParser.parseNumber("1.2.3,4,5"));
+		assertEquals(-1, GenericNumberParser.parseLong("2.5", -1));
+		assertEquals(-1, GenericNumberParser.parseInt("3000000000", -1));
+		assertFalse(GenericNumberParser.isNumber(","));
+		assertTrue(GenericNumberParser.isNumber(" 1e3 "));
+	}
+
+	@Test
+	void testDoublesMatchDoubleParseDouble() {
+		String[] values = {"0.1", "1.7976931348623157E308", "4.9E-324", "123456789012345678901234", "2.2250738585072014E-308", "1e22", "1e23"};
+		for (String value : values) {
+			assertEquals(Double.parseDouble(value), GenericNumberParser.parseDouble(value, '.', Double.NaN), 0.0, value);
+		}
+	}
+
+	@Test
+	void testColumnInference() {
+		NumberColumn ints = GenericNumberParser.parseColumn(new String[]{"1", "-2", "", "3"});
+		assertEquals(NumberColumn.Type.INT, ints.getType());
+		assertArrayEquals(new int[]{1, -2, 0, 3}, ints.getInts());
+		assertTrue(ints.isMissing(2));
+
+		NumberColumn german = GenericNumberParser.parseColumn(new String[]{"1,5", "1.234,25", "3", "n/a"});
+		assertEquals(',', german.getDecimalSeparator());
+		assertEquals(NumberColumn.Type.FLOAT, german.getType());
+		assertArrayEquals(new float[]{1.5f, 1234.25f, 3f, 0f}, german.getFloats());
+		assertEquals(1, german.getInvalidCount());
+
+		assertEquals(NumberColumn.Type.TEXT, GenericNumberParser.parseColumn(new String[]{"a", "b", "1"}).getType());
+	}
+
+	@Test
+	void testColumnWidensPastSample() {
+		List<String> values = new ArrayList<>();
+		for (int i = 0; i < 100000; i++) {
+			values.add(Integer.toString(i));
+		}
+		values.set(99998, "1.25");
+		values.set(99999, "3000000000");
+		assertEquals(NumberColumn.Type.INT, GenericNumberParser.inferColumn(values, 100).type());
+
+		NumberColumn column = GenericNumberParser.parseColumn(values);
+		assertEquals(NumberColumn.Type.DOUBLE, column.getType());
+		assertEquals(5.0, column.getDoubles()[5], 0.0);
+		assertEquals(1.25, column.getDoubles()[99998], 0.0);
+		assertEquals(3e9, column.getDoubles()[99999], 0.0);
+	}
+}
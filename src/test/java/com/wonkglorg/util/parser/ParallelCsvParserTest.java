@@ -0,0 +1,94 @@
+package com.wonkglorg.util.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelCsvParserTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testQuotedLineBreaksAcrossChunks() throws IOException {
+        StringBuilder csv = new StringBuilder("id,text,value\n");
+        for (int i = 0; i < 200; i++) {
+            csv.append(i).append(",\"line one\nline \"\"two\"\", with comma\nline three\",").append(i * 3).append('\n');
+            csv.append(i).append(",plain,\"\"\n");
+        }
+        Path file = Files.writeString(directory.resolve("multiline.csv"), csv);
+
+        //chunks far smaller than a record put most raw boundaries inside quoted fields
+        for (long chunkSize : new long[]{7, 16, 61, 1000}) {
+            ParallelCsvParser parser = new ParallelCsvParser(file, StandardCharsets.UTF_8).chunkSize(chunkSize).parallelism(4);
+            assertTrue(parser.split().size() > 1);
+            List<List<String>> rows = toLists(parser.parseAll());
+            assertEquals(readSequentially(file), rows);
+            assertEquals(401, rows.size());
+            assertEquals("line one\nline \"two\", with comma\nline three", rows.get(1).get(1));
+        }
+    }
+
+    @Test
+    void testCrlfLineEndings() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            csv.append(i).append(",name ").append(i).append(",\"quoted\r\nvalue\"\r\n");
+        }
+        Path file = Files.writeString(directory.resolve("crlf.csv"), csv);
+
+        ParallelCsvParser parser = new ParallelCsvParser(file, StandardCharsets.UTF_8).chunkSize(32).parallelism(4);
+        List<List<String>> rows = toLists(parser.parseAll());
+        assertEquals(readSequentially(file), rows);
+        assertEquals(100, rows.size());
+        for (List<String> row : rows) {
+            assertEquals(3, row.size());
+            assertFalse(row.get(2).endsWith("\r"));
+        }
+
+        ConcurrentLinkedQueue<List<String>> unordered = new ConcurrentLinkedQueue<>();
+        parser.ordered(false).forEach(row -> unordered.add(Arrays.asList(row)));
+        List<List<String>> sorted = new ArrayList<>(unordered);
+        sorted.sort(Comparator.comparingInt(row -> Integer.parseInt(row.get(0))));
+        assertEquals(rows, sorted);
+    }
+
+    @Test
+    void testFileSmallerThanOneChunk() throws IOException {
+        Path file = Files.writeString(directory.resolve("small.csv"), "a,b\r\n\"1\n2\",3\n4,\"\"");
+
+        ParallelCsvParser parser = new ParallelCsvParser(file, StandardCharsets.UTF_8);
+        assertEquals(1, parser.split().size());
+        List<List<String>> rows = toLists(parser.parseAll());
+        assertEquals(readSequentially(file), rows);
+        assertEquals(List.of(List.of("a", "b"), List.of("1\n2", "3"), List.of("4", "")), rows);
+    }
+
+    private static List<List<String>> readSequentially(Path file) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        try (CsvReader reader = CsvReader.open(file, StandardCharsets.UTF_8, ',')) {
+            reader.forEachRemaining(row -> rows.add(Arrays.asList(row)));
+        }
+        return rows;
+    }
+
+    private static List<List<String>> toLists(List<String[]> rows) {
+        List<List<String>> lists = new ArrayList<>(rows.size());
+        for (String[] row : rows) {
+            lists.add(Arrays.asList(row));
+        }
+        return lists;
+    }
+}